@@ -5,22 +5,73 @@
  * Description:
  * 		This file contains the class definition for BayesianLearning.
  * 
- * 		The BayesianLearning class maintains a three-dimensional matrix of conditional probabilities, an
- * 			array of the two class values, and a String array of the attributes found in the training/test
- * 			set (used for displaying).
+ * 		The BayesianLearning class maintains a three-dimensional matrix of conditional probabilities of the
+ * 			categorical attributes, the means and variances of the numeric attributes, an array of the
+ * 			class probabilities, a String array of the attributes found in the training/test set (used for
+ * 			displaying), and the counts that the probabilities are derived from.
+ * 
+ * 		Categorical attributes and the class can take any number of non-negative integer values. Numeric
+ * 			attributes use a gaussian likelihood whose mean and variance are accumulated in the same single
+ * 			pass as the counts.
  * 
  * 		It is also responsible for training, testing, and displaying the results that are produced based
  * 			on the user's provided training set and test set.
  * 
+ * 		Training counts the classes and attribute values of every class in a single pass over the training
+ * 			set, optionally with several threads whose counts are added together at the end. New instances
+ * 			and the counts of separately trained models can be added to the counts later on, and the
+ * 			probabilities are only derived from the counts when they are needed.
+ * 
+ * 		The trained model can be compiled into a CompiledScorer, which predicts in log space.
+ * 
  */
 
 import java.io.*;
+import java.util.Arrays;
 import java.util.Scanner;
 
 public class BayesianLearning {
 	private String attributes[];
 	private double[][][] p;
 	private double[] c;
+	private double[][] mean;
+	private double[][] variance;
+	private NaiveBayesCounts counts;
+	private boolean stale;
+	private String[] numericAttributes = new String[0];
+	
+	// smallest variance of a numeric attribute, so that a constant attribute does not divide by zero
+	static final double MIN_VARIANCE = 1e-9;
+	
+	/* Description:	Sets which attributes are numeric, with a gaussian likelihood, instead of categorical; must be
+	 * 				called before training
+	 *
+	 * Input:		Names of the numeric attributes (names)
+	 *
+	 * Output:		N/A
+	 * 
+	 * Effect:		Assigns the names of the numeric attributes (numericAttributes)
+	 */
+	public void setNumericAttributes(String... names)
+	{
+		numericAttributes = names;
+	}
+	
+	/* Description:	Determines which attributes are numeric; utilized by the train methods
+	 *
+	 * Input:		N/A
+	 *
+	 * Output:		Whether each attribute is numeric
+	 * 
+	 * Effect:		N/A
+	 */
+	boolean[] numericFlags()
+	{
+		boolean[] numeric = new boolean[attributes.length-1];
+		for(int curAttr = 0; curAttr < attributes.length-1; curAttr++)
+			numeric[curAttr] = Arrays.asList(numericAttributes).contains(attributes[curAttr]);
+		return numeric;
+	}
 	
 	/* Description:	Trains using bayesian learning with the provided training set file and number of instances
 	 *
@@ -30,10 +81,181 @@ public class BayesianLearning {
 	 * Output:		N/A
 	 * 
 	 * Effect:		Assigns the entire array of attribute names (attributes)
-	 *				Assigns the entire matrix of conditional probabilities (p)
-	 *				Assigns the entire array of class probabilities (c)
+	 *				Assigns the counts of the training set (counts)
+	 *				Marks the probabilities to be derived from the counts (stale)
 	 */
 	public void train(String trainingFile, int numInstances) throws FileNotFoundException
+	{
+		// read the training set
+		double[][] trainingSet = readTrainingSet(trainingFile, numInstances, null);
+		
+		// count the classes and the attribute values of every class in a single pass
+		counts = new NaiveBayesCounts(attributes, numericFlags());
+		for(int i = 0; i < numInstances; i++)
+			counts.add(trainingSet[i]);
+		stale = true;
+	}
+	
+	/* Description:	Trains using bayesian learning with several threads, each counting a slice of the training set
+	 *
+	 * Input:		Training set file (trainingFile)
+	 *				Number of instances (numInstances)
+	 *				Number of threads (numThreads)
+	 *
+	 * Output:		N/A
+	 * 
+	 * Effect:		Assigns the entire array of attribute names (attributes)
+	 *				Assigns the counts of the training set (counts)
+	 *				Marks the probabilities to be derived from the counts (stale)
+	 */
+	public void trainParallel(String trainingFile, int numInstances, int numThreads) throws FileNotFoundException, InterruptedException
+	{
+		// read the training set
+		final double[][] trainingSet = readTrainingSet(trainingFile, numInstances, null);
+		
+		// every thread counts its own slice into its own counts
+		final NaiveBayesCounts[] threadCounts = new NaiveBayesCounts[numThreads];
+		Thread[] workers = new Thread[numThreads];
+		for(int t = 0; t < numThreads; t++)
+		{
+			final NaiveBayesCounts local = new NaiveBayesCounts(attributes, numericFlags());
+			final int start = (int)((long)t * numInstances / numThreads);
+			final int end = (int)((long)(t+1) * numInstances / numThreads);
+			threadCounts[t] = local;
+			workers[t] = new Thread(() -> {
+				for(int i = start; i < end; i++)
+					local.add(trainingSet[i]);
+			});
+			workers[t].start();
+		}
+		
+		// wait for every thread and merge its counts
+		counts = new NaiveBayesCounts(attributes, numericFlags());
+		for(int t = 0; t < numThreads; t++)
+		{
+			workers[t].join();
+			counts.merge(threadCounts[t]);
+		}
+		stale = true;
+	}
+	
+	/* Description:	Adds the instances of another training set file to the model, without retraining on the previous ones
+	 *
+	 * Input:		Training set file with the same attributes (trainingFile)
+	 *				Number of instances (numInstances)
+	 *
+	 * Output:		N/A
+	 * 
+	 * Effect:		Increments the counts by the new instances (counts)
+	 *				Marks the probabilities to be derived from the counts (stale)
+	 */
+	public void update(String trainingFile, int numInstances) throws FileNotFoundException
+	{
+		// read the new instances, which must have the same attributes as a trained model
+		double[][] trainingSet = readTrainingSet(trainingFile, numInstances, counts == null ? null : attributes);
+		if(counts == null)
+			counts = new NaiveBayesCounts(attributes, numericFlags());
+		
+		// add the new instances to the counts
+		for(int i = 0; i < numInstances; i++)
+			counts.add(trainingSet[i]);
+		stale = true;
+	}
+	
+	/* Description:	Adds one instance to the model
+	 *
+	 * Input:		Array containing the instance values for the attributes and class (instance)
+	 *
+	 * Output:		N/A
+	 * 
+	 * Effect:		Increments the counts by the instance (counts)
+	 *				Marks the probabilities to be derived from the counts (stale)
+	 */
+	public void update(int[] instance)
+	{
+		// a single instance does not name the attributes, so the model must already be trained
+		trainedCounts().add(instance);
+		stale = true;
+	}
+	
+	/* Description:	Adds the counts of another model, trained separately on the same attributes, to this model
+	 *
+	 * Input:		The other model (other)
+	 *
+	 * Output:		N/A
+	 * 
+	 * Effect:		Increments the counts by the counts of the other model, starting from empty counts of its attributes
+	 *				if this model is not trained (attributes, counts)
+	 *				Marks the probabilities to be derived from the counts (stale)
+	 */
+	public void merge(BayesianLearning other)
+	{
+		NaiveBayesCounts otherCounts = other.trainedCounts();
+		if(counts == null) {
+			attributes = otherCounts.attributes;
+			counts = new NaiveBayesCounts(otherCounts.attributes, otherCounts.numeric.clone());
+		}
+		counts.merge(otherCounts);
+		stale = true;
+	}
+	
+	/* Description:	Saves the counts of the model to a file
+	 *
+	 * Input:		File to save to (file)
+	 *
+	 * Output:		N/A
+	 * 
+	 * Effect:		N/A
+	 */
+	public void save(String file) throws IOException
+	{
+		trainedCounts().save(file);
+	}
+	
+	/* Description:	Returns the counts of the model, which must have been trained or loaded
+	 *
+	 * Input:		N/A
+	 *
+	 * Output:		The counts
+	 * 
+	 * Effect:		N/A
+	 */
+	NaiveBayesCounts trainedCounts()
+	{
+		if(counts == null)
+			throw new IllegalStateException("model not trained");
+		return counts;
+	}
+	
+	/* Description:	Loads the counts of a model from a file, replacing the current model
+	 *
+	 * Input:		File to load from (file)
+	 *
+	 * Output:		N/A
+	 * 
+	 * Effect:		Assigns the entire array of attribute names (attributes)
+	 *				Assigns the loaded counts (counts)
+	 *				Marks the probabilities to be derived from the counts (stale)
+	 */
+	public void load(String file) throws IOException, ClassNotFoundException
+	{
+		counts = NaiveBayesCounts.load(file);
+		attributes = counts.attributes;
+		stale = true;
+	}
+	
+	/* Description:	Reads the training set, checking its attributes before anything is read; utilized by the train and
+	 *				update methods
+	 *
+	 * Input:		Training set file (trainingFile)
+	 *				Number of instances (numInstances)
+	 *				The attributes the training set must have, or null for any (expected)
+	 *
+	 * Output:		Matrix of the training set values
+	 * 
+	 * Effect:		Assigns the entire array of attribute names once the training set is read (attributes)
+	 */
+	double[][] readTrainingSet(String trainingFile, int numInstances, String[] expected) throws FileNotFoundException
 	{
 		// create a Scanner for reading the training data
 		Scanner sc = new Scanner(new File(trainingFile));
@@ -43,68 +265,95 @@ public class BayesianLearning {
 		while(next.trim().isEmpty())
 			next = sc.nextLine();
 		
-		// identifies the classes from the first line of the training data
-		attributes = next.split("\\s+");
+		// identifies the classes from the first line of the training data, which must match the expected ones
+		String[] header = next.split("\\s+");
+		if(expected != null && !Arrays.equals(expected, header)) {
+			sc.close();
+			throw new IllegalArgumentException("Attributes of " + trainingFile + " do not match the model");
+		}
 		
 		// set up a training set matrix
-		int[][] trainingSet = new int[numInstances][attributes.length];
+		double[][] trainingSet = new double[numInstances][header.length];
 		for(int i = 0; i < numInstances; i++) {
 			next = sc.nextLine();
 			if(!next.trim().isEmpty()) {
 				String[] splitLine = next.split("\\s+");
-				for(int j = 0; j < attributes.length; j++)
-					trainingSet[i][j] = Integer.parseInt(splitLine[j]);
+				for(int j = 0; j < header.length; j++)
+					trainingSet[i][j] = Double.parseDouble(splitLine[j]);
 			}
 			else
 				i--;
 		}
 		sc.close();
 		
-		// determine the number of 0 classes and 1 classes
-		int totNum[] = new int[2];
-		totNum[0] = 0;
-		totNum[1] = 0;
-		for(int i = 0; i < numInstances; i++)
-		{
-			int classOfInstance = trainingSet[i][attributes.length-1]; 
-			if(classOfInstance == 0)
-				totNum[0]++;
-			else if(classOfInstance == 1)
-				totNum[1]++;
-		}
-
-		// set up matrix for conditional probabilities, such that p[i][j][k] corresponds to P(i=j|k)
-		p = new double[attributes.length-1][2][2];
+		// the attributes only change once the whole training set is read
+		attributes = header;
+		return trainingSet;
+	}
+	
+	/* Description:	Derives the class and conditional probabilities from the counts, if they changed since the last time
+	 *
+	 * Input:		N/A
+	 *
+	 * Output:		N/A
+	 * 
+	 * Effect:		Assigns the entire matrix of conditional probabilities of the categorical attributes (p)
+	 *				Assigns the entire array of class probabilities (c)
+	 *				Assigns the means and variances of the numeric attributes (mean, variance)
+	 *				Marks the probabilities as up to date (stale)
+	 */
+	void assignProbabilities()
+	{
+		// nothing changed since the probabilities were last derived
+		if(!stale)
+			return;
+		stale = false;
+		long[] totNum = counts.classCount;
+		long[][][] count = counts.count;
+		
+		// there are at least 2 classes, and 2 values of every categorical attribute
+		int numClasses = Math.max(totNum.length, 2);
+		long total = 0;
+		for(int classVal = 0; classVal < totNum.length; classVal++)
+			total += totNum[classVal];
 		
-		// set up array for class probabilities
-		c = new double[2];
+		// set up array for class probabilities and assign the values for P(C=k)
+		c = new double[numClasses];
+		for(int classVal = 0; classVal < numClasses; classVal++)
+			c[classVal] = (double)classCount(classVal) / (double)total;
 		
-		// assign the values for P(C=0) and P(C=1)
-		c[0] = (double)totNum[0] /(double)(totNum[0]+totNum[1]);
-		c[1] = (double)totNum[1] /(double)(totNum[0]+totNum[1]);
+		// set up matrix for conditional probabilities, such that p[i][j][k] corresponds to P(i=j|k), and the
+		// means and variances, such that mean[i][k] and variance[i][k] belong to numeric attribute i for class k
+		p = new double[attributes.length-1][][];
+		mean = new double[attributes.length-1][];
+		variance = new double[attributes.length-1][];
 		
 		// loop through attributes
 		for(int curAttr = 0; curAttr < attributes.length-1; curAttr++)
 		{
-			// loop through 2 attribute values
-			for(int attrVal = 0; attrVal < 2; attrVal++)
+			// assign the mean and variance of a numeric attribute for every class
+			if(counts.numeric[curAttr]) {
+				mean[curAttr] = new double[numClasses];
+				variance[curAttr] = new double[numClasses];
+				for(int classVal = 0; classVal < totNum.length; classVal++) {
+					mean[curAttr][classVal] = counts.mean[curAttr][classVal];
+					if(totNum[classVal] != 0)
+						variance[curAttr][classVal] = counts.m2[curAttr][classVal] / totNum[classVal];
+				}
+				continue;
+			}
+			
+			// loop through the attribute values
+			int numValues = Math.max(count[curAttr].length, 2);
+			p[curAttr] = new double[numValues][numClasses];
+			for(int attrVal = 0; attrVal < count[curAttr].length; attrVal++)
 			{
-				// loop through 2 classes
-				for(int classVal = 0; classVal < 2; classVal++)
+				// loop through classes
+				for(int classVal = 0; classVal < totNum.length; classVal++)
 				{
-					// determine the number of instances matching in class value and attribute value
-					int num = 0;
-					for(int i = 0; i < numInstances; i++)
-					{
-						int classOfInstance = trainingSet[i][attributes.length-1];
-						int attrOfInstance = trainingSet[i][curAttr];
-						if(classOfInstance == classVal && attrOfInstance == attrVal)
-							num++;
-					}
-					
 					// assign the conditional probability
 					if(totNum[classVal] != 0)
-						p[curAttr][attrVal][classVal] = (double)num / (double)totNum[classVal];
+						p[curAttr][attrVal][classVal] = (double)count[curAttr][attrVal][classVal] / (double)totNum[classVal];
 					else
 						p[curAttr][attrVal][classVal] = 0;
 				}
@@ -112,6 +361,45 @@ public class BayesianLearning {
 		}
 	}
 	
+	/* Description:	Returns the number of instances of a class, zero for a class that was never seen
+	 *
+	 * Input:		The class (classVal)
+	 *
+	 * Output:		Number of instances of the class
+	 * 
+	 * Effect:		N/A
+	 */
+	long classCount(int classVal)
+	{
+		return classVal < counts.classCount.length ? counts.classCount[classVal] : 0;
+	}
+	
+	/* Description:	Calculates the likelihood of an attribute value given a class
+	 *
+	 * Input:		The attribute (curAttr)
+	 *				The value of the attribute (value)
+	 *				The class (classVal)
+	 *
+	 * Output:		The gaussian density for a numeric attribute, or P(curAttr=value|classVal) for a categorical one
+	 * 
+	 * Effect:		N/A
+	 */
+	double likelihood(int curAttr, double value, int classVal)
+	{
+		// gaussian density of a numeric attribute
+		if(counts.numeric[curAttr]) {
+			double var = Math.max(variance[curAttr][classVal], MIN_VARIANCE);
+			double diff = value - mean[curAttr][classVal];
+			return Math.exp(-diff * diff / (2 * var)) / Math.sqrt(2 * Math.PI * var);
+		}
+		
+		// a value that was never seen has probability zero
+		int attrVal = (int)value;
+		if(attrVal < 0 || attrVal >= p[curAttr].length)
+			return 0;
+		return p[curAttr][attrVal][classVal];
+	}
+	
 	/* Description: Tests the results on the test file and returns the accuracy
 	 * 
 	 * Input:		Test set file (testFile)
@@ -122,6 +410,9 @@ public class BayesianLearning {
 	 */
 	public double test(String testFile) throws FileNotFoundException
 	{
+		// derive the probabilities from the counts
+		assignProbabilities();
+		
 		// create a Scanner for reading the test data
 		Scanner sc = new Scanner(new File(testFile));
 		
@@ -169,45 +460,60 @@ public class BayesianLearning {
 	 */
 	public boolean checkInstance(String[] splitLine)
 	{
+		// derive the probabilities from the counts
+		assignProbabilities();
+		
 		// calculate naive bayes classifiers
-		double[] nb = new double[2];
-		nb[0] = 1;
-		nb[1] = 1;
+		double[] nb = new double[c.length];
 		
-		// loop through 2 classes
-		for(int classVal = 0; classVal < 2; classVal++)
+		// loop through classes
+		for(int classVal = 0; classVal < c.length; classVal++)
 		{
+			nb[classVal] = 1;
+			
 			// loop through attributes and multiply conditional probabilities
 			for(int i = 0; i < attributes.length-1; i++)
-				nb[classVal] *= p[i][Integer.parseInt(splitLine[i])][classVal];
+				nb[classVal] *= likelihood(i, Double.parseDouble(splitLine[i]), classVal);
 			
 			// multiply class probability
 			nb[classVal] *= c[classVal];
 		}
 		
-		// class 0 is selected
-		if(nb[0] >= nb[1])
-		{
-			// if the correct class is 0
-			if(Integer.parseInt(splitLine[attributes.length-1]) == 0)
-				return true;
-			
-			// if the correct class is 1
-			else
-				return false;
-		}
+		// select the class with the largest value, ties going to the lowest class
+		int selected = 0;
+		for(int classVal = 1; classVal < c.length; classVal++)
+			if(nb[classVal] > nb[selected])
+				selected = classVal;
 		
-		// class 1 is selected
+		// if the correct class is selected return true, otherwise return false
+		if(Integer.parseInt(splitLine[attributes.length-1]) == selected)
+			return true;
 		else
-		{
-			// if the correct class is 1
-			if(Integer.parseInt(splitLine[attributes.length-1]) == 1)
-				return true;
-			
-			// if the correct class is 0
-			else
-				return false;
-		}
+			return false;
+	}
+	
+	/* Description: Compiles the trained model into a log space scorer, which avoids the underflow of multiplying
+	 * 				the probabilities of many attributes
+	 * 
+	 * Input:		N/A
+	 * 
+	 * Output:		The compiled scorer
+	 * 
+	 * Effect:		N/A
+	 */
+	public CompiledScorer compile()
+	{
+		// derive the probabilities from the counts
+		assignProbabilities();
+		
+		// the compiled scorer only handles binary attributes and 2 classes
+		if(c.length != 2)
+			throw new IllegalStateException("Only a model with 2 classes can be compiled");
+		for(int curAttr = 0; curAttr < attributes.length-1; curAttr++)
+			if(counts.numeric[curAttr] || p[curAttr].length != 2)
+				throw new IllegalStateException("Only a model with binary attributes can be compiled");
+		
+		return new CompiledScorer(p, c);
 	}
 	
 	/* Description: Display the results
@@ -220,18 +526,26 @@ public class BayesianLearning {
 	 */
 	public void display()
 	{
-		// loop through 2 classes
-		for(int classVal = 0; classVal < 2; classVal++)
+		// derive the probabilities from the counts
+		assignProbabilities();
+		
+		// loop through classes
+		for(int classVal = 0; classVal < c.length; classVal++)
 		{
 			// print class probabilities
 			System.out.printf("P(%s=%d)=%.2f ", attributes[attributes.length-1], classVal, c[classVal]);
 			
 			// loop through attributes
 			for(int curAttr = 0; curAttr < attributes.length-1; curAttr++) {
-				// loop through 2 attribute values
-				for(int attrVal = 0; attrVal < 2; attrVal++)
-					// print conditional probabilities
-					System.out.printf("P(%s=%d|%d)=%.2f ", attributes[curAttr], attrVal, classVal, p[curAttr][attrVal][classVal]);
+				// print mean and variance of a numeric attribute
+				if(counts.numeric[curAttr])
+					System.out.printf("P(%s|%d)=N(%.2f,%.2f) ", attributes[curAttr], classVal, mean[curAttr][classVal], variance[curAttr][classVal]);
+				
+				// loop through attribute values
+				else
+					for(int attrVal = 0; attrVal < p[curAttr].length; attrVal++)
+						// print conditional probabilities
+						System.out.printf("P(%s=%d|%d)=%.2f ", attributes[curAttr], attrVal, classVal, p[curAttr][attrVal][classVal]);
 			}
 			
 			// print new line
@@ -0,0 +1,212 @@
+/*
+ * CompiledScorer.java
+ * Date: 2018
+ *
+ * Description:
+ * 		This file contains the class definition for CompiledScorer.
+ *
+ * 		The CompiledScorer class maintains the naive bayes model of a trained BayesianLearning compiled into
+ * 			log space: a bias holding the log odds of class 1 when every attribute is 0, and for every
+ * 			attribute the change of the log odds when it is 1 instead.
+ *
+ * 		It is also responsible for predicting the class of instances, either one at a time or as a batch of
+ * 			binary instances packed into bitsets, and for testing the predictions on the user's provided
+ * 			test set.
+ *
+ */
+
+import java.io.*;
+import java.util.Scanner;
+
+public class CompiledScorer {
+	// smallest probability used in log space, so that a zero probability does not produce an infinite log
+	static final double MIN_PROBABILITY = Double.MIN_NORMAL;
+
+	// number of instances packed and predicted together while testing
+	static final int BATCH_SIZE = 1024;
+
+	double bias;
+	double[] delta;
+	int numWords;
+
+	/* Description:	Compiles the class and conditional probabilities into log odds
+	 *
+	 * Input:		Matrix of conditional probabilities, such that p[i][j][k] corresponds to P(i=j|k) (p)
+	 *				Array of class probabilities (c)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Assigns the log odds of class 1 when every attribute is 0 (bias)
+	 *				Assigns the change of the log odds for every attribute that is 1 (delta)
+	 *				Assigns the number of longs in a packed instance (numWords)
+	 */
+	public CompiledScorer(double[][][] p, double[] c)
+	{
+		// start from the log odds of the class probabilities
+		bias = log(c[1]) - log(c[0]);
+
+		// loop through attributes
+		delta = new double[p.length];
+		for(int i = 0; i < p.length; i++)
+		{
+			// log odds contributed by the attribute when it is 0 and when it is 1
+			double whenZero = log(p[i][0][1]) - log(p[i][0][0]);
+			double whenOne = log(p[i][1][1]) - log(p[i][1][0]);
+
+			// every attribute is assumed 0 in the bias, an attribute that is 1 replaces its contribution
+			bias += whenZero;
+			delta[i] = whenOne - whenZero;
+		}
+
+		numWords = (p.length + 63) / 64;
+	}
+
+	/* Description: Calculates the log of a probability, raising it to the smallest probability first
+	 *
+	 * Input:		The probability (probability)
+	 *
+	 * Output:		The log of the probability
+	 *
+	 * Effect:		N/A
+	 */
+	static double log(double probability)
+	{
+		return Math.log(Math.max(probability, MIN_PROBABILITY));
+	}
+
+	/* Description: Predicts the class of an instance
+	 *
+	 * Input:		Array containing the instance values for the attributes (x)
+	 *
+	 * Output:		The predicted class, 0 or 1
+	 *
+	 * Effect:		N/A
+	 */
+	public int predict(int[] x)
+	{
+		// add the change of every attribute that is 1
+		double score = bias;
+		for(int i = 0; i < delta.length; i++)
+			if(x[i] == 1)
+				score += delta[i];
+
+		// ties go to class 0
+		return score > 0 ? 1 : 0;
+	}
+
+	/* Description: Packs a binary instance into a bitset, one bit per attribute
+	 *
+	 * Input:		Array containing the instance values for the attributes (x)
+	 *				Array of packed instances (packed)
+	 *				Position of the instance in the array (offset)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Assigns the bits of the instance (packed)
+	 */
+	public void pack(int[] x, long[] packed, int offset)
+	{
+		for(int w = 0; w < numWords; w++)
+			packed[offset + w] = 0;
+		for(int i = 0; i < delta.length; i++)
+			if(x[i] == 1)
+				packed[offset + (i >>> 6)] |= 1L << (i & 63);
+	}
+
+	/* Description: Predicts the class of a batch of packed binary instances, only visiting the attributes that are 1
+	 *
+	 * Input:		Array of packed instances, numWords longs per instance (packed)
+	 *				Number of instances (count)
+	 *				Array of predicted classes (predictions)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Assigns the predicted class of every instance (predictions)
+	 */
+	public void predictBatch(long[] packed, int count, int[] predictions)
+	{
+		// loop through instances
+		for(int r = 0; r < count; r++)
+		{
+			double score = bias;
+			int offset = r * numWords;
+
+			// loop through the set bits of every word
+			for(int w = 0; w < numWords; w++) {
+				long bits = packed[offset + w];
+				while(bits != 0) {
+					score += delta[(w << 6) + Long.numberOfTrailingZeros(bits)];
+					bits &= bits - 1;
+				}
+			}
+
+			// ties go to class 0
+			predictions[r] = score > 0 ? 1 : 0;
+		}
+	}
+
+	/* Description: Tests the predictions on the test file in batches and returns the accuracy
+	 *
+	 * Input:		Test set file (testFile)
+	 *
+	 * Output:		Accuracy of the predictions on the test file
+	 *
+	 * Effect:		N/A
+	 */
+	public double test(String testFile) throws FileNotFoundException
+	{
+		// create a Scanner for reading the test data
+		Scanner sc = new Scanner(new File(testFile));
+
+		// ignore first line (attributes)
+		String next = sc.nextLine();
+
+		// keep track of the total number of instances and the number of correct classifications
+		int numInstances = 0;
+		int numCorrect = 0;
+
+		// buffers of the current batch
+		int[] x = new int[delta.length];
+		long[] packed = new long[BATCH_SIZE * numWords];
+		int[] classes = new int[BATCH_SIZE];
+		int[] predictions = new int[BATCH_SIZE];
+		int count = 0;
+
+		// loop through the lines of the test file
+		while(sc.hasNextLine() || count > 0)
+		{
+			// ignore empty lines
+			next = sc.hasNextLine() ? sc.nextLine() : "";
+			if(!next.trim().isEmpty())
+			{
+				// increment the total number of instances
+				numInstances++;
+
+				// pack the next line of the test file into the batch
+				String[] splitLine = next.split("\\s+");
+				for(int i = 0; i < delta.length; i++)
+					x[i] = Integer.parseInt(splitLine[i]);
+				pack(x, packed, count * numWords);
+				classes[count] = Integer.parseInt(splitLine[delta.length]);
+				count++;
+			}
+
+			// predict a full batch, or the last one
+			if(count == BATCH_SIZE || (count > 0 && !sc.hasNextLine()))
+			{
+				predictBatch(packed, count, predictions);
+				for(int r = 0; r < count; r++)
+					if(predictions[r] == classes[r])
+						numCorrect++;
+				count = 0;
+			}
+		}
+		sc.close();
+
+		// calculate the accuracy
+		double accuracy = ((double)numCorrect / (double)numInstances) * 100;
+
+		// return the accuracy
+		return accuracy;
+	}
+}
@@ -0,0 +1,259 @@
+/*
+ * NaiveBayesCounts.java
+ * Date: 2018
+ *
+ * Description:
+ * 		This file contains the class definition for NaiveBayesCounts.
+ *
+ * 		The NaiveBayesCounts class maintains the counts that a naive bayes model is derived from: a String
+ * 			array of the attributes, which attributes are numeric, the number of instances of every class,
+ * 			a three-dimensional matrix of the number of instances with every value of every categorical
+ * 			attribute for every class, and the running mean and sum of squared differences (Welford) of
+ * 			every numeric attribute for every class.
+ *
+ * 		It is also responsible for adding instances to the counts, merging the counts of models that were
+ * 			trained separately (on different shards or days of data), and saving and loading the counts.
+ *
+ * 		The number of classes and the number of values of every categorical attribute grow as new ones
+ * 			are seen.
+ *
+ */
+
+import java.io.*;
+import java.util.Arrays;
+
+public class NaiveBayesCounts implements Serializable {
+	private static final long serialVersionUID = 2L;
+
+	String[] attributes;
+	boolean[] numeric;
+	long[] classCount;
+	long[][][] count;
+	double[][] mean;
+	double[][] m2;
+
+	/* Description:	Creates empty counts for the provided attributes, all of them categorical
+	 *
+	 * Input:		Array of attribute names, the last one being the class (attrs)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		See the constructor below
+	 */
+	public NaiveBayesCounts(String[] attrs)
+	{
+		this(attrs, new boolean[attrs.length-1]);
+	}
+
+	/* Description:	Creates empty counts for the provided attributes
+	 *
+	 * Input:		Array of attribute names, the last one being the class (attrs)
+	 *				Whether each attribute is numeric (numericAttrs)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Assigns the entire array of attribute names (attributes)
+	 *				Assigns which attributes are numeric (numeric)
+	 *				Initializes the number of instances of every class (classCount)
+	 *				Initializes the matrix of attribute value counts, such that count[i][j][k] is the number
+	 *					of instances of class k where categorical attribute i is j (count)
+	 *				Initializes the means and sums of squared differences, such that mean[i][k] and m2[i][k]
+	 *					belong to numeric attribute i for class k (mean, m2)
+	 */
+	public NaiveBayesCounts(String[] attrs, boolean[] numericAttrs)
+	{
+		attributes = attrs;
+		numeric = numericAttrs;
+		classCount = new long[0];
+		count = new long[attributes.length-1][0][];
+		mean = new double[attributes.length-1][];
+		m2 = new double[attributes.length-1][];
+		for(int curAttr = 0; curAttr < attributes.length-1; curAttr++) {
+			if(numeric[curAttr]) {
+				mean[curAttr] = new double[0];
+				m2[curAttr] = new double[0];
+			}
+		}
+	}
+
+	/* Description: Adds one instance of integer values to the counts
+	 *
+	 * Input:		Array containing the instance values for the attributes and class (instance)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		See add below
+	 */
+	public void add(int[] instance)
+	{
+		double[] values = new double[instance.length];
+		for(int i = 0; i < instance.length; i++)
+			values[i] = instance[i];
+		add(values);
+	}
+
+	/* Description: Adds one instance to the counts; instances with a negative class and negative categorical values
+	 * 				are not counted
+	 *
+	 * Input:		Array containing the instance values for the attributes and class (instance)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Increments the counts of the instance (classCount, count)
+	 *				Updates the means and sums of squared differences of the instance (mean, m2)
+	 */
+	public void add(double[] instance)
+	{
+		// only instances of a non-negative class are counted
+		int classOfInstance = (int)instance[attributes.length-1];
+		if(classOfInstance < 0)
+			return;
+		ensureClasses(classOfInstance + 1);
+		classCount[classOfInstance]++;
+		long n = classCount[classOfInstance];
+
+		// loop through attributes
+		for(int curAttr = 0; curAttr < attributes.length-1; curAttr++)
+		{
+			// update the running mean and sum of squared differences of a numeric attribute
+			if(numeric[curAttr]) {
+				double delta = instance[curAttr] - mean[curAttr][classOfInstance];
+				mean[curAttr][classOfInstance] += delta / n;
+				m2[curAttr][classOfInstance] += delta * (instance[curAttr] - mean[curAttr][classOfInstance]);
+			}
+
+			// count the value of a categorical attribute
+			else {
+				int attrOfInstance = (int)instance[curAttr];
+				if(attrOfInstance < 0)
+					continue;
+				ensureValues(curAttr, attrOfInstance + 1);
+				count[curAttr][attrOfInstance][classOfInstance]++;
+			}
+		}
+	}
+
+	/* Description: Grows the counts to hold the provided number of classes
+	 *
+	 * Input:		Number of classes (numClasses)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Grows the class dimension of the counts (classCount, count, mean, m2)
+	 */
+	void ensureClasses(int numClasses)
+	{
+		if(numClasses <= classCount.length)
+			return;
+		classCount = Arrays.copyOf(classCount, numClasses);
+		for(int curAttr = 0; curAttr < attributes.length-1; curAttr++) {
+			if(numeric[curAttr]) {
+				mean[curAttr] = Arrays.copyOf(mean[curAttr], numClasses);
+				m2[curAttr] = Arrays.copyOf(m2[curAttr], numClasses);
+			}
+			else
+				for(int attrVal = 0; attrVal < count[curAttr].length; attrVal++)
+					count[curAttr][attrVal] = Arrays.copyOf(count[curAttr][attrVal], numClasses);
+		}
+	}
+
+	/* Description: Grows the counts of a categorical attribute to hold the provided number of values
+	 *
+	 * Input:		Attribute (curAttr)
+	 *				Number of values (numValues)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Grows the value dimension of the counts of the attribute (count)
+	 */
+	void ensureValues(int curAttr, int numValues)
+	{
+		int previous = count[curAttr].length;
+		if(numValues <= previous)
+			return;
+		count[curAttr] = Arrays.copyOf(count[curAttr], numValues);
+		for(int attrVal = previous; attrVal < numValues; attrVal++)
+			count[curAttr][attrVal] = new long[classCount.length];
+	}
+
+	/* Description: Adds the counts of another model to these counts
+	 *
+	 * Input:		Counts of the other model, with the same attributes (other)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Increments the counts by the other counts (classCount, count)
+	 *				Combines the means and sums of squared differences with the other ones (mean, m2)
+	 */
+	public void merge(NaiveBayesCounts other)
+	{
+		// only counts of the same attributes can be merged
+		if(!Arrays.equals(attributes, other.attributes) || !Arrays.equals(numeric, other.numeric))
+			throw new IllegalArgumentException("Cannot merge counts of different attributes");
+
+		// grow the counts to hold the classes and values of the other counts
+		ensureClasses(other.classCount.length);
+		for(int curAttr = 0; curAttr < attributes.length-1; curAttr++)
+			if(!numeric[curAttr])
+				ensureValues(curAttr, other.count[curAttr].length);
+
+		// loop through the classes of the other counts
+		for(int classVal = 0; classVal < other.classCount.length; classVal++)
+		{
+			long na = classCount[classVal];
+			long nb = other.classCount[classVal];
+			long n = na + nb;
+
+			// loop through attributes
+			for(int curAttr = 0; curAttr < attributes.length-1; curAttr++)
+			{
+				// combine the means and sums of squared differences of a numeric attribute
+				if(numeric[curAttr]) {
+					if(nb == 0)
+						continue;
+					double delta = other.mean[curAttr][classVal] - mean[curAttr][classVal];
+					mean[curAttr][classVal] += delta * nb / n;
+					m2[curAttr][classVal] += other.m2[curAttr][classVal] + delta * delta * na * nb / n;
+				}
+
+				// add the value counts of a categorical attribute
+				else
+					for(int attrVal = 0; attrVal < other.count[curAttr].length; attrVal++)
+						count[curAttr][attrVal][classVal] += other.count[curAttr][attrVal][classVal];
+			}
+
+			classCount[classVal] = n;
+		}
+	}
+
+	/* Description: Saves the counts to a file
+	 *
+	 * Input:		File to save to (file)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		N/A
+	 */
+	public void save(String file) throws IOException
+	{
+		ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		out.writeObject(this);
+		out.close();
+	}
+
+	/* Description: Loads counts that were saved to a file
+	 *
+	 * Input:		File to load from (file)
+	 *
+	 * Output:		The loaded counts
+	 *
+	 * Effect:		N/A
+	 */
+	public static NaiveBayesCounts load(String file) throws IOException, ClassNotFoundException
+	{
+		ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+		NaiveBayesCounts counts = (NaiveBayesCounts)in.readObject();
+		in.close();
+		return counts;
+	}
+}
@@ -7,26 +7,65 @@
  * 
  * 		The MDP class maintains the number of iterations to be run, the number of states in the input
  * 			file, the number of actions in the input file, two arrays of the state names, and the action
- * 			names, an array of the rewards associated with each state, a three-dimensional matrix of the
- * 			possible actions, and two two-dimensional matrices of the J values and optimal policy actions
- * 			respectively.
+ * 			names, an array of the rewards associated with each state, the possible actions stored sparsely
+ * 			(for every state its possible actions, and for every possible action its successor states and
+ * 			their probabilities), and two two-dimensional matrices of the J values and optimal policy
+ * 			actions respectively.
+ * 
+ * 		The input file can either be read in two passes given the number of states and actions, or in a single
+ * 			pass that finds states and actions by name with hash maps and infers their numbers.
  * 
  * 		It is also responsible for running value iteration using Bellman's Equation and displaying the J
  * 			values and optimal policies that are produced based on the user's provided number of iterations.
+ * 			Each iteration only visits the possible actions of every state and their successor states.
+ * 
+ * 		Value iteration can also run until the Bellman residual drops below a given epsilon, keeping only
+ * 			the current and previous J values plus optional periodic snapshots, and can back up the states
+ * 			of every iteration in parallel, or in several ShardWorker processes that each own a range of the
+ * 			states and exchange the J values they need with this process over loopback TCP.
+ * 
+ * 		Value iteration can also solve the Markov Decision Process for several discount factors at once,
+ * 			reading every transition once per iteration for all of them.
+ * 
+ * 		It can also solve the Markov Decision Process with Gauss-Seidel value iteration (in place) or with
+ * 			prioritized sweeping, which only backs up the states whose successors changed, using a StateQueue,
+ * 			or with modified policy iteration, or with labeled real-time dynamic programming from a start
+ * 			state, which only backs up the states that greedy trajectories from the start state reach.
  * 
  */
 
 import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
 import java.util.Scanner;
 
 public class MDP {
+	// milliseconds to wait for a worker process of sharded value iteration to connect or exit
+	static final int SHARD_TIMEOUT = 60000;
+	
 	int numIterations, numStates, numActions;
 	String[] stateNames;
 	String[] actionNames;
 	double[] reward;
-	double[][][] action;
+	int[] stateStart;
+	int[] rowAction;
+	int[] rowStart;
+	int[] successor;
+	double[] probability;
+	int[] predStart;
+	int[] predecessor;
+	double[] predProbability;
 	double[][] J;
 	int[][] op;
+	int[] recordedIterations;
 	
 	/* 
 	 * Description:	Constructor that creates the MDP object
@@ -43,9 +82,9 @@ public class MDP {
 	 *			Assigns the entire array of state names (stateNames)
 	 *			Assigns the entire array of action names (actionNames)
 	 *			Assigns the entire array of rewards using the input file (reward)
-	 *			Assigns the entire matrix of actions using the input file (action)
-	 *			Initializes the matrix of J values (J)
-	 *			Initializes the matrix of optimal policies (op)
+	 *			Assigns the sparse actions using the input file (stateStart, rowAction, rowStart, successor, probability)
+	 *			Initializes the matrix of J values as empty (J)
+	 *			Initializes the matrix of optimal policies as empty (op)
 	 */
 	public MDP(int states, int maxActions, int iterations, String inputFile) throws FileNotFoundException
 	{
@@ -57,17 +96,13 @@ public class MDP {
 		stateNames = new String[numStates];
 		actionNames = new String[maxActions];
 		
-		// initialize the reward array and the action matrix
+		// initialize the reward array and the sparse actions, which grow as actions are read
 		reward = new double[numStates];
-		action = new double[numStates][numStates][maxActions];
-		
-		// initialize all action probabilities with zeroes
-		for(int i = 0; i < numStates; i++) {
-			for(int j = 0; j < numStates; j++) {
-				for(int k = 0; k < maxActions; k++)
-					action[i][j][k] = 0;
-			}
-		}
+		stateStart = new int[numStates + 1];
+		rowAction = new int[16];
+		rowStart = new int[17];
+		successor = new int[16];
+		probability = new double[16];
 		
 		// create a Scanner for reading the state names
 		Scanner sc1 = new Scanner(new File(inputFile));
@@ -102,6 +137,12 @@ public class MDP {
 				// set rewards
 				reward[i] = Double.parseDouble(splitLine[1]);
 				
+				// collect the actions of the state as (action, stateTo, probability) triples
+				int numTriples = (splitLine.length - 2) / 3;
+				int[] tripleAction = new int[numTriples];
+				int[] tripleState = new int[numTriples];
+				double[] tripleProb = new double[numTriples];
+				
 				// loop through possible actions/probabilities
 				for(int j = 2; j < splitLine.length; j = j+3) {
 					// get the action name
@@ -124,17 +165,294 @@ public class MDP {
 					double prob = Double.parseDouble(splitLine[j+2].substring(0, splitLine[j+2].length() - 1));
 					
 					// set the action
-					action[i][stateTo][a] = prob;
+					int t = (j - 2) / 3;
+					tripleAction[t] = a;
+					tripleState[t] = stateTo;
+					tripleProb[t] = prob;
 				}
+				
+				// add the triples of the state
+				addState(i, tripleAction, tripleState, tripleProb, 0, numTriples);
 			}
 			else
 				i--;
 		}
 		sc2.close();
 		
-		// initialize J and optimal policy matrix
-		J = new double[numIterations][numStates];
-		op = new int[numIterations][numStates];
+		// J and optimal policy matrix are allocated by the value iteration method that is used
+		J = new double[0][numStates];
+		op = new int[0][numStates];
+		recordedIterations = new int[0];
+	}
+	
+	/* 
+	 * Description:	Constructor that creates the MDP object reading the input file once, finding states and actions by
+	 *			name with hash maps and inferring the number of states and actions from the file
+	 *
+	 * Input:		Number of iterations (iterations)
+	 *			Input file (inputFile)
+	 *
+	 * Output:		N/A
+	 * 
+	 * Effect:		Assigns the number of states (numStates)
+	 *			Assigns the number of actions (numActions)
+	 *			Assigns the number of iterations (numIterations)
+	 *			Assigns the entire array of state names (stateNames)
+	 *			Assigns the entire array of action names (actionNames)
+	 *			Assigns the entire array of rewards using the input file (reward)
+	 *			Assigns the sparse actions using the input file (stateStart, rowAction, rowStart, successor, probability)
+	 *			Initializes the matrix of J values as empty (J)
+	 *			Initializes the matrix of optimal policies as empty (op)
+	 */
+	public MDP(int iterations, String inputFile) throws IOException
+	{
+		numIterations = iterations;
+		
+		// states are numbered in the order their names are first seen, either defining a line or as a successor;
+		// lineOf holds the line that defines each of them, which becomes its final number
+		HashMap<String, Integer> stateIndex = new HashMap<String, Integer>();
+		HashMap<String, Integer> actionIndex = new HashMap<String, Integer>();
+		ArrayList<String> names = new ArrayList<String>();
+		ArrayList<String> actions = new ArrayList<String>();
+		int[] lineOf = growFilled(new int[0], 16);
+		
+		// rewards and start of the triples of every line, and the (action, stateTo, probability) triples of all lines
+		double[] lineReward = new double[16];
+		int[] lineTriples = new int[17];
+		int[] tripleAction = new int[16];
+		int[] tripleState = new int[16];
+		double[] tripleProb = new double[16];
+		int numLines = 0;
+		int numTriples = 0;
+		
+		// loop through the lines of the input file
+		try(BufferedReader br = new BufferedReader(new FileReader(inputFile), 1 << 16)) {
+			String next;
+			while((next = br.readLine()) != null)
+			{
+				// ignore empty lines
+				if(next.trim().isEmpty())
+					continue;
+				String[] splitLine = next.trim().split("\\s+");
+			
+				// number the state of the line, which must not have been defined before
+				int state = stateNumber(splitLine[0], stateIndex, names);
+				if(state >= lineOf.length)
+					lineOf = growFilled(lineOf, state + 1);
+				if(lineOf[state] >= 0)
+					throw new IOException("State " + splitLine[0] + " is defined twice in " + inputFile);
+				lineOf[state] = numLines;
+			
+				// grow the line buffers
+				if(numLines == lineReward.length) {
+					lineReward = Arrays.copyOf(lineReward, numLines * 2);
+					lineTriples = Arrays.copyOf(lineTriples, numLines * 2 + 1);
+				}
+			
+				// set rewards
+				lineReward[numLines] = Double.parseDouble(splitLine[1]);
+			
+				// loop through possible actions/probabilities
+				for(int j = 2; j + 2 < splitLine.length; j = j+3) {
+					// grow the triple buffers
+					if(numTriples == tripleAction.length) {
+						tripleAction = Arrays.copyOf(tripleAction, numTriples * 2);
+						tripleState = Arrays.copyOf(tripleState, numTriples * 2);
+						tripleProb = Arrays.copyOf(tripleProb, numTriples * 2);
+					}
+				
+					// get the action, adding it to the list of action names if it has not been previously used
+					String actionName = splitLine[j].substring(1);
+					Integer a = actionIndex.get(actionName);
+					if(a == null) {
+						a = actions.size();
+						actionIndex.put(actionName, a);
+						actions.add(actionName);
+					}
+				
+					// get the number for the state, which may be defined by a later line
+					int stateTo = stateNumber(splitLine[j+1], stateIndex, names);
+					if(stateTo >= lineOf.length)
+						lineOf = growFilled(lineOf, stateTo + 1);
+				
+					// set the action
+					tripleAction[numTriples] = a;
+					tripleState[numTriples] = stateTo;
+					tripleProb[numTriples] = Double.parseDouble(splitLine[j+2].substring(0, splitLine[j+2].length() - 1));
+					numTriples++;
+				}
+				numLines++;
+				lineTriples[numLines] = numTriples;
+			}
+		}
+		
+		// every state that is used as a successor must be defined by a line
+		for(int state = 0; state < names.size(); state++)
+			if(lineOf[state] < 0)
+				throw new IOException("State " + names.get(state) + " is used but not defined in " + inputFile);
+		
+		// set the number of states and actions and their names, numbering states by their line
+		numStates = numLines;
+		numActions = actions.size();
+		actionNames = actions.toArray(new String[numActions]);
+		stateNames = new String[numStates];
+		for(int state = 0; state < numStates; state++)
+			stateNames[lineOf[state]] = names.get(state);
+		reward = Arrays.copyOf(lineReward, numStates);
+		for(int t = 0; t < numTriples; t++)
+			tripleState[t] = lineOf[tripleState[t]];
+		
+		// build the sparse actions, one line at a time
+		stateStart = new int[numStates + 1];
+		rowAction = new int[16];
+		rowStart = new int[17];
+		successor = new int[Math.max(numTriples, 1)];
+		probability = new double[Math.max(numTriples, 1)];
+		for(int line = 0; line < numLines; line++)
+			addState(line, tripleAction, tripleState, tripleProb, lineTriples[line], lineTriples[line+1]);
+		
+		// J and optimal policy matrix are allocated by the value iteration method that is used
+		J = new double[0][numStates];
+		op = new int[0][numStates];
+		recordedIterations = new int[0];
+	}
+	
+	/* 
+	 * Description:	Finds the number of a state by name, numbering it if it is new; utilized by the constructor
+	 *
+	 * Input:		The name of the state (stateName)
+	 *			Numbers of the states seen so far (stateIndex)
+	 *			Names of the states seen so far, in order (names)
+	 *
+	 * Output:		The number of the state
+	 * 
+	 * Effect:		Adds a new state to the numbers and names (stateIndex, names)
+	 */
+	static int stateNumber(String stateName, HashMap<String, Integer> stateIndex, ArrayList<String> names)
+	{
+		Integer state = stateIndex.get(stateName);
+		if(state == null) {
+			state = names.size();
+			stateIndex.put(stateName, state);
+			names.add(stateName);
+		}
+		return state;
+	}
+	
+	/* 
+	 * Description:	Grows an array to at least the provided length, filling the new elements with -1; utilized by the constructor
+	 *
+	 * Input:		The array (array)
+	 *			The least length (length)
+	 *
+	 * Output:		The grown array
+	 * 
+	 * Effect:		N/A
+	 */
+	static int[] growFilled(int[] array, int length)
+	{
+		int previous = array.length;
+		int[] grown = Arrays.copyOf(array, Math.max(length, previous * 2));
+		Arrays.fill(grown, previous, grown.length, -1);
+		return grown;
+	}
+	
+	/* 
+	 * Description:	Adds the actions of a state to the sparse actions, one row per possible action with its successor
+	 *			states in increasing order; utilized by the constructors, which add the states in order
+	 *
+	 * Input:		The state (state)
+	 *			Actions of the triples (tripleAction)
+	 *			Successor states of the triples (tripleState)
+	 *			Probabilities of the triples (tripleProb)
+	 *			First triple of the state (from)
+	 *			Triple after the last one of the state (to)
+	 *
+	 * Output:		N/A
+	 * 
+	 * Effect:		Adds the rows and transitions of the state (stateStart, rowAction, rowStart, successor, probability)
+	 */
+	void addState(int state, int[] tripleAction, int[] tripleState, double[] tripleProb, int from, int to)
+	{
+		// the triples that are kept, in order
+		int[] order = new int[to - from];
+		int numKept = keptTriples(tripleAction, tripleState, tripleProb, from, to, order);
+		
+		// the rows of the state start after the rows of the states before it
+		int numRows = stateStart[state];
+		int numTransitions = rowStart[numRows];
+		
+		// add the triples of the state, one row per possible action
+		for(int t = 0; t < numKept; t++) {
+			int x = order[t];
+			
+			// start a new row for a new action
+			if(numRows == stateStart[state] || rowAction[numRows-1] != tripleAction[x]) {
+				if(numRows == rowAction.length) {
+					rowAction = Arrays.copyOf(rowAction, numRows * 2);
+					rowStart = Arrays.copyOf(rowStart, numRows * 2 + 1);
+				}
+				rowAction[numRows] = tripleAction[x];
+				rowStart[numRows] = numTransitions;
+				numRows++;
+			}
+			
+			// add the transition
+			if(numTransitions == successor.length) {
+				successor = Arrays.copyOf(successor, numTransitions * 2);
+				probability = Arrays.copyOf(probability, numTransitions * 2);
+			}
+			successor[numTransitions] = tripleState[x];
+			probability[numTransitions] = tripleProb[x];
+			numTransitions++;
+			rowStart[numRows] = numTransitions;
+		}
+		
+		// the rows of the next state start here
+		stateStart[state+1] = numRows;
+	}
+	
+	/* 
+	 * Description:	Sorts the triples of a state by action and then by successor state, dropping a triple that is repeated
+	 *			later in the file and a triple with a zero probability; utilized by addState and MappedMDP.build
+	 *
+	 * Input:		Actions of the triples (tripleAction)
+	 *			Successor states of the triples (tripleState)
+	 *			Probabilities of the triples (tripleProb)
+	 *			First triple of the state (from)
+	 *			Triple after the last one of the state (to)
+	 *			Array of at least to - from elements to store the kept triples in (order)
+	 *
+	 * Output:		Number of kept triples
+	 * 
+	 * Effect:		Assigns the kept triples in order as the first elements (order)
+	 */
+	static int keptTriples(int[] tripleAction, int[] tripleState, double[] tripleProb, int from, int to, int[] order)
+	{
+		// sort the triples by action and then by stateTo with an insertion sort, keeping the file order of repeated triples
+		for(int t = 0; t < to - from; t++) {
+			int x = from + t;
+			int k = t;
+			while(k > 0 && (tripleAction[order[k-1]] > tripleAction[x] || (tripleAction[order[k-1]] == tripleAction[x] && tripleState[order[k-1]] > tripleState[x]))) {
+				order[k] = order[k-1];
+				k--;
+			}
+			order[k] = x;
+		}
+		
+		// keep the triples in place
+		int numKept = 0;
+		for(int t = 0; t < to - from; t++) {
+			int x = order[t];
+			
+			// a repeated triple replaces the one before it, and a zero probability is not an action
+			if(t + 1 < to - from && tripleAction[order[t+1]] == tripleAction[x] && tripleState[order[t+1]] == tripleState[x])
+				continue;
+			if(tripleProb[x] <= 0)
+				continue;
+			order[numKept++] = x;
+		}
+		return numKept;
 	}
 	
 	/* 
@@ -194,9 +512,17 @@ public class MDP {
 	 * 
 	 * Effect:		Assigns the entire matrix of J values (J)
 	 *			Assigns the entire matrix of optimal policies (op)
+	 *			Assigns the iteration of every row of J and op (recordedIterations)
 	 */
 	void valueIteration(double discountFactor)
 	{	
+		// initialize J and optimal policy matrix, one row for every iteration
+		J = new double[numIterations][numStates];
+		op = new int[numIterations][numStates];
+		recordedIterations = new int[numIterations];
+		for(int i = 0; i < numIterations; i++)
+			recordedIterations[i] = i+1;
+		
 		// loop through iterations
 		for(int i = 0; i < numIterations; i++)
 		{
@@ -209,66 +535,979 @@ public class MDP {
 					J[i][state] = reward[state];
 					
 					// set optimal policy (select any action available)
-					boolean found = false;
-					for(int stateTo = 0; stateTo < numStates && !found; stateTo++)
-						for(int a = 0; a < numActions && !found; a++)
-							if(action[state][stateTo][a] > 0) {
-								op[i][state] = a;
-								found = true;
-							}
+					op[i][state] = firstAction(state);
 				}
 				
 				// after the first iteration
-				else {
-					// create two-dimensional matrix of possible J values
-					// 		Jtemp[a][0] will equal 1 if action a is possible, otherwise it is 0
-					//		Jtemp[a][1] will equal the J value if action a is taken
-					double[][] Jtemp = new double[numActions][2];
-					
-					// initialize Jtemp values to zero
-					for(int a = 0; a < numActions; a++)
-						for(int v = 0; v < 2; v++)
-							Jtemp[a][v] = 0;
-					
-					// loop through all actions
-					for(int a = 0; a < numActions; a++)
-					{
-						// loop through all states
-						for(int stateTo = 0; stateTo < numStates; stateTo++)
-						{
-							// if an action from state to stateTo is possible
-							if(action[state][stateTo][a] > 0)
-								Jtemp[a][0] = 1;
-							
-							// summation of actions and previous J values
-							Jtemp[a][1] += (action[state][stateTo][a] * J[i-1][stateTo]);
-						}
-						
-						// calculation of possible J value
-						Jtemp[a][1] *= discountFactor;
-						Jtemp[a][1] += reward[state];
-					}
-					
-					// initially no action is selected as the best action
-					int bestAction = 0;
-					boolean bestActionDefined = false;
-					
-					// loop through actions
-					for(int a = 0; a < numActions; a++)
-					{
-						// if either no valid action has been selected yet or the J value of the selected best action is less than that of the valid action a, set the best action to be action a
-						if(Jtemp[a][0] == 1 && ((!bestActionDefined) || (Jtemp[a][1] > Jtemp[bestAction][1]))) {
-							bestAction = a;
-							bestActionDefined = true;
-						}
+				else
+					J[i][state] = backup(state, J[i-1], discountFactor, op[i]);
+			}
+		}
+	}
+	
+	/* 
+	 * Description:	Runs value iteration until the Bellman residual (the largest change of a J value between two
+	 *			iterations) drops below epsilon, or numIterations iterations have run; only the current and
+	 *			previous J values are kept, plus a snapshot every snapshotInterval iterations
+	 *
+	 * Input:		The discount factor (discountFactor)
+	 *			The residual to stop at (epsilon)
+	 *			Number of iterations between snapshots, or 0 to keep only the final iteration (snapshotInterval)
+	 *
+	 * Output:		Number of iterations that were run
+	 * 
+	 * Effect:		Assigns the J values of the snapshots and final iteration (J)
+	 *			Assigns the optimal policies of the snapshots and final iteration (op)
+	 *			Assigns the iteration of every row of J and op (recordedIterations)
+	 */
+	int valueIterationUntilConverged(double discountFactor, double epsilon, int snapshotInterval)
+	{
+		return valueIterationUntilConverged(discountFactor, epsilon, snapshotInterval, null);
+	}
+	
+	/* 
+	 * Description:	Runs value iteration until the Bellman residual drops below epsilon, like the method above, with
+	 *			the states of every iteration split into ranges that are backed up in parallel; since every state
+	 *			only reads the previous J values, the results are identical to the sequential method
+	 *
+	 * Input:		The discount factor (discountFactor)
+	 *			The residual to stop at (epsilon)
+	 *			Number of iterations between snapshots, or 0 to keep only the final iteration (snapshotInterval)
+	 *			Number of threads (numThreads)
+	 *
+	 * Output:		Number of iterations that were run
+	 * 
+	 * Effect:		Assigns the J values of the snapshots and final iteration (J)
+	 *			Assigns the optimal policies of the snapshots and final iteration (op)
+	 *			Assigns the iteration of every row of J and op (recordedIterations)
+	 */
+	int valueIterationParallel(double discountFactor, double epsilon, int snapshotInterval, int numThreads)
+	{
+		ForkJoinPool pool = new ForkJoinPool(numThreads);
+		try {
+			return valueIterationUntilConverged(discountFactor, epsilon, snapshotInterval, pool);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+	
+	/* 
+	 * Description:	Runs value iteration until the Bellman residual drops below epsilon or numIterations iterations have
+	 *			run, with the states split into ranges that are backed up by separate ShardWorker processes; on every
+	 *			iteration each worker receives the previous J values of the states outside of its range that its
+	 *			states lead to over loopback TCP, and sends back the new J values of its range and its residual, so
+	 *			the results are identical to the sequential method
+	 *
+	 * Input:		Input file the MDP was read from, which every worker reads (inputFile)
+	 *			The discount factor (discountFactor)
+	 *			The residual to stop at (epsilon)
+	 *			Number of worker processes (numShards)
+	 *
+	 * Output:		Number of iterations that were run
+	 * 
+	 * Effect:		Assigns the J values of the final iteration (J)
+	 *			Assigns the optimal policies of the final iteration (op)
+	 *			Assigns the number of iterations (recordedIterations)
+	 */
+	int valueIterationSharded(String inputFile, double discountFactor, double epsilon, int numShards) throws IOException
+	{
+		// the workers connect to a server on the loopback address
+		ServerSocket server = new ServerSocket(0, numShards, InetAddress.getLoopbackAddress());
+		server.setSoTimeout(SHARD_TIMEOUT);
+		Process[] workers = new Process[numShards];
+		Socket[] sockets = new Socket[numShards];
+		DataInputStream[] in = new DataInputStream[numShards];
+		DataOutputStream[] out = new DataOutputStream[numShards];
+		int[][] outside = new int[numShards][];
+		
+		try {
+			// launch the workers with the classpath of this process
+			String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+			for(int shard = 0; shard < numShards; shard++)
+				workers[shard] = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "ShardWorker",
+						Integer.toString(server.getLocalPort()), inputFile, Integer.toString(shard), Integer.toString(numShards),
+						Double.toString(discountFactor)).inheritIO().start();
+			
+			// accept the workers in any order, each of which sends its shard and the states outside of its range
+			for(int c = 0; c < numShards; c++) {
+				Socket socket = server.accept();
+				socket.setTcpNoDelay(true);
+				DataInputStream socketIn = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+				int shard = socketIn.readInt();
+				sockets[shard] = socket;
+				in[shard] = socketIn;
+				out[shard] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+				outside[shard] = new int[in[shard].readInt()];
+				for(int o = 0; o < outside[shard].length; o++)
+					outside[shard][o] = in[shard].readInt();
+			}
+			
+			// first iteration
+			double[] Jcur = new double[numStates];
+			int[] policy = new int[numStates];
+			for(int state = 0; state < numStates; state++)
+				Jcur[state] = reward[state];
+			
+			// loop through iterations until the residual is small enough
+			int i = 1;
+			double residual = Double.MAX_VALUE;
+			while(i < numIterations && residual >= epsilon)
+			{
+				// send every worker the previous J values it needs
+				for(int shard = 0; shard < numShards; shard++) {
+					out[shard].writeInt(ShardWorker.SWEEP);
+					for(int o = 0; o < outside[shard].length; o++)
+						out[shard].writeDouble(Jcur[outside[shard][o]]);
+					out[shard].flush();
+				}
+				
+				// receive the residuals and new J values of every range
+				residual = 0;
+				for(int shard = 0; shard < numShards; shard++) {
+					residual = Math.max(residual, in[shard].readDouble());
+					int to = ShardWorker.rangeStart(numStates, shard + 1, numShards);
+					for(int state = ShardWorker.rangeStart(numStates, shard, numShards); state < to; state++)
+						Jcur[state] = in[shard].readDouble();
+				}
+				i++;
+			}
+			
+			// stop the workers and receive the final policy of every range
+			for(int shard = 0; shard < numShards; shard++) {
+				out[shard].writeInt(ShardWorker.STOP);
+				out[shard].flush();
+			}
+			for(int shard = 0; shard < numShards; shard++) {
+				int to = ShardWorker.rangeStart(numStates, shard + 1, numShards);
+				for(int state = ShardWorker.rangeStart(numStates, shard, numShards); state < to; state++)
+					policy[state] = in[shard].readInt();
+			}
+			
+			// keep only the final iteration
+			J = new double[][] { Jcur };
+			op = new int[][] { policy };
+			recordedIterations = new int[] { i };
+			return i;
+		}
+		finally {
+			// close the connections and make sure no worker outlives the method
+			for(int shard = 0; shard < numShards; shard++)
+				if(sockets[shard] != null)
+					sockets[shard].close();
+			server.close();
+			for(int shard = 0; shard < numShards; shard++) {
+				if(workers[shard] == null)
+					continue;
+				try {
+					if(!workers[shard].waitFor(SHARD_TIMEOUT, TimeUnit.MILLISECONDS))
+						workers[shard].destroyForcibly();
+				}
+				catch(InterruptedException e) {
+					workers[shard].destroyForcibly();
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+	
+	/* 
+	 * Description:	Runs value iteration until the Bellman residual drops below epsilon; utilized by the methods above
+	 *
+	 * Input:		The discount factor (discountFactor)
+	 *			The residual to stop at (epsilon)
+	 *			Number of iterations between snapshots, or 0 to keep only the final iteration (snapshotInterval)
+	 *			Pool to run the iterations in, or null to run them sequentially (pool)
+	 *
+	 * Output:		Number of iterations that were run
+	 * 
+	 * Effect:		Assigns the J values of the snapshots and final iteration (J)
+	 *			Assigns the optimal policies of the snapshots and final iteration (op)
+	 *			Assigns the iteration of every row of J and op (recordedIterations)
+	 */
+	int valueIterationUntilConverged(double discountFactor, double epsilon, int snapshotInterval, ForkJoinPool pool)
+	{
+		// current and previous J values and the current policy
+		double[] Jprev = new double[numStates];
+		double[] Jcur = new double[numStates];
+		int[] policy = new int[numStates];
+		ArrayList<double[]> snapshotJ = new ArrayList<double[]>();
+		ArrayList<int[]> snapshotOp = new ArrayList<int[]>();
+		ArrayList<Integer> snapshotIteration = new ArrayList<Integer>();
+		
+		// first iteration
+		for(int state = 0; state < numStates; state++) {
+			Jcur[state] = reward[state];
+			policy[state] = firstAction(state);
+		}
+		
+		// loop through iterations until the residual is small enough
+		int i = 1;
+		double residual = Double.MAX_VALUE;
+		while(true)
+		{
+			// keep a snapshot of the iteration, and always of the final one
+			boolean last = i >= numIterations || residual < epsilon;
+			if(last || (snapshotInterval > 0 && i % snapshotInterval == 0)) {
+				snapshotJ.add(Jcur.clone());
+				snapshotOp.add(policy.clone());
+				snapshotIteration.add(i);
+			}
+			if(last)
+				break;
+			
+			// the current J values become the previous ones
+			double[] swap = Jprev;
+			Jprev = Jcur;
+			Jcur = swap;
+			
+			// run the next iteration
+			if(pool == null)
+				residual = sweep(Jprev, Jcur, policy, discountFactor, 0, numStates);
+			else
+				residual = pool.invoke(new SweepTask(this, Jprev, Jcur, policy, discountFactor, 0, numStates));
+			i++;
+		}
+		
+		// keep the snapshots as the J values and optimal policies
+		J = snapshotJ.toArray(new double[snapshotJ.size()][]);
+		op = snapshotOp.toArray(new int[snapshotOp.size()][]);
+		recordedIterations = new int[snapshotIteration.size()];
+		for(int s = 0; s < recordedIterations.length; s++)
+			recordedIterations[s] = snapshotIteration.get(s);
+		
+		return i;
+	}
+	
+	/* 
+	 * Description:	Calculates the new J values of a range of states from the previous J values
+	 *
+	 * Input:		The previous J values (Jprev)
+	 *			The new J values (Jnext)
+	 *			The policy to set the best actions in (policy)
+	 *			The discount factor (discountFactor)
+	 *			The first state of the range (from)
+	 *			The state after the last one of the range (to)
+	 *
+	 * Output:		The largest change of a J value in the range
+	 * 
+	 * Effect:		Assigns the new J values of the range (Jnext)
+	 *			Assigns the best actions of the range (policy)
+	 */
+	double sweep(double[] Jprev, double[] Jnext, int[] policy, double discountFactor, int from, int to)
+	{
+		double residual = 0;
+		for(int state = from; state < to; state++) {
+			Jnext[state] = backup(state, Jprev, discountFactor, policy);
+			residual = Math.max(residual, Math.abs(Jnext[state] - Jprev[state]));
+		}
+		return residual;
+	}
+	
+	/* 
+	 * Description:	Runs value iteration for several discount factors at once; every discount factor stops, and is no
+	 *			longer backed up, once its own Bellman residual drops below epsilon or numIterations iterations have
+	 *			run, so its row is the same as that of valueIterationUntilConverged with the same epsilon; the J
+	 *			values of all factors are kept next to each other for every state, so every transition is read from
+	 *			memory once per iteration
+	 *
+	 * Input:		The discount factors (discountFactors)
+	 *			The residual to stop at (epsilon)
+	 *
+	 * Output:		Number of iterations of the discount factor that ran the most
+	 * 
+	 * Effect:		Assigns the J values of the final iteration of every discount factor, one row per factor (J)
+	 *			Assigns the optimal policies of the final iteration of every discount factor, one row per factor (op)
+	 *			Assigns the number of iterations of every row (recordedIterations)
+	 */
+	int valueIterationBatch(double[] discountFactors, double epsilon)
+	{
+		// current and previous J values and the current policies, such that Jcur[state * numFactors + k] belongs to discountFactors[k]
+		int numFactors = discountFactors.length;
+		double[] Jprev = new double[numStates * numFactors];
+		double[] Jcur = new double[numStates * numFactors];
+		int[] policy = new int[numStates * numFactors];
+		
+		// first iteration
+		for(int state = 0; state < numStates; state++) {
+			int first = firstAction(state);
+			for(int k = 0; k < numFactors; k++) {
+				Jcur[state * numFactors + k] = reward[state];
+				policy[state * numFactors + k] = first;
+			}
+		}
+		
+		// the discount factors that are still backed up, and the iterations and residual of every factor
+		boolean[] active = new boolean[numFactors];
+		int[] iterations = new int[numFactors];
+		double[] residuals = new double[numFactors];
+		double[] sums = new double[numFactors];
+		int numActive = numIterations > 1 ? numFactors : 0;
+		Arrays.fill(active, numActive > 0);
+		Arrays.fill(iterations, 1);
+		
+		// loop through iterations until the residual of every discount factor is small enough
+		int i = 1;
+		while(numActive > 0)
+		{
+			// the current J values become the previous ones
+			double[] swap = Jprev;
+			Jprev = Jcur;
+			Jcur = swap;
+			
+			// back up every state for every active discount factor
+			Arrays.fill(residuals, 0);
+			for(int state = 0; state < numStates; state++)
+				backupBatch(state, Jprev, Jcur, discountFactors, active, policy, residuals, sums);
+			i++;
+			
+			// a discount factor whose residual is small enough, or that ran every iteration, keeps its current J values
+			for(int k = 0; k < numFactors; k++) {
+				if(!active[k])
+					continue;
+				iterations[k] = i;
+				if(i >= numIterations || residuals[k] < epsilon) {
+					active[k] = false;
+					numActive--;
+				}
+			}
+		}
+		
+		// keep the final iteration of every discount factor as its own row
+		J = new double[numFactors][numStates];
+		op = new int[numFactors][numStates];
+		recordedIterations = iterations;
+		for(int k = 0; k < numFactors; k++) {
+			for(int state = 0; state < numStates; state++) {
+				J[k][state] = Jcur[state * numFactors + k];
+				op[k][state] = policy[state * numFactors + k];
+			}
+		}
+		return i;
+	}
+	
+	/* 
+	 * Description:	Calculates the new J values of a state for several discount factors using Bellman's equation;
+	 *			the J values of the discount factors that are no longer active are carried over unchanged;
+	 *			utilized by valueIterationBatch
+	 *
+	 * Input:		The state (state)
+	 *			The previous J values, numFactors per state (Jprev)
+	 *			The new J values, numFactors per state (Jnext)
+	 *			The discount factors (discountFactors)
+	 *			Whether every discount factor is still backed up (active)
+	 *			The policies to set the best actions in, numFactors per state (policy)
+	 *			The largest change of a J value of every discount factor so far (residuals)
+	 *			Array of numFactors elements to accumulate the summation of every discount factor in (sums)
+	 *
+	 * Output:		N/A
+	 * 
+	 * Effect:		Assigns the new J values of the state (Jnext)
+	 *			Assigns the best actions of the state for the active discount factors (policy)
+	 *			Raises the largest changes by the changes of the state (residuals)
+	 *			Assigns the summations of the last possible action (sums)
+	 */
+	void backupBatch(int state, double[] Jprev, double[] Jnext, double[] discountFactors, boolean[] active, int[] policy,
+			double[] residuals, double[] sums)
+	{
+		int numFactors = discountFactors.length;
+		int base = state * numFactors;
+		
+		// a state without possible actions keeps its reward, and an inactive discount factor its previous J value
+		for(int k = 0; k < numFactors; k++) {
+			if(!active[k]) {
+				Jnext[base + k] = Jprev[base + k];
+				continue;
+			}
+			Jnext[base + k] = reward[state];
+			policy[base + k] = 0;
+		}
+		
+		// loop through the possible actions
+		for(int r = stateStart[state]; r < stateStart[state+1]; r++)
+		{
+			// summation of actions and previous J values for every discount factor at once: every transition is read once,
+			// and the J values of its successor for every factor share a cache line; the summations of the inactive
+			// factors are not used, but skipping them would cost a branch per transition
+			Arrays.fill(sums, 0);
+			for(int t = rowStart[r]; t < rowStart[r+1]; t++) {
+				double prob = probability[t];
+				int from = successor[t] * numFactors;
+				for(int k = 0; k < numFactors; k++)
+					sums[k] += prob * Jprev[from + k];
+			}
+			
+			// loop through the active discount factors
+			for(int k = 0; k < numFactors; k++)
+			{
+				if(!active[k])
+					continue;
+				
+				// the first action, or a better one, becomes the best action
+				double value = sums[k] * discountFactors[k] + reward[state];
+				if(r == stateStart[state] || value > Jnext[base + k]) {
+					Jnext[base + k] = value;
+					policy[base + k] = rowAction[r];
+				}
+			}
+		}
+		
+		// raise the largest change of every active discount factor
+		for(int k = 0; k < numFactors; k++)
+			if(active[k])
+				residuals[k] = Math.max(residuals[k], Math.abs(Jnext[base + k] - Jprev[base + k]));
+	}
+	
+	/* 
+	 * Description:	Runs Gauss-Seidel value iteration, which updates the J values in place so that every backup already
+	 *			uses the new J values of the states before it, until the Bellman residual drops below epsilon or
+	 *			numIterations sweeps have run
+	 *
+	 * Input:		The discount factor (discountFactor)
+	 *			The residual to stop at (epsilon)
+	 *
+	 * Output:		Number of backups that were run
+	 * 
+	 * Effect:		Assigns the J values of the final sweep (J)
+	 *			Assigns the optimal policies of the final sweep (op)
+	 *			Assigns the number of sweeps (recordedIterations)
+	 */
+	int valueIterationGaussSeidel(double discountFactor, double epsilon)
+	{
+		// J values and policy, starting as in the first iteration
+		double[] values = new double[numStates];
+		int[] policy = new int[numStates];
+		for(int state = 0; state < numStates; state++) {
+			values[state] = reward[state];
+			policy[state] = firstAction(state);
+		}
+		
+		// loop through sweeps until the residual is small enough
+		int sweeps = 1;
+		double residual = Double.MAX_VALUE;
+		while(sweeps < numIterations && residual >= epsilon)
+		{
+			// back up every state in place
+			residual = 0;
+			for(int state = 0; state < numStates; state++) {
+				double value = backup(state, values, discountFactor, policy);
+				residual = Math.max(residual, Math.abs(value - values[state]));
+				values[state] = value;
+			}
+			sweeps++;
+		}
+		
+		// keep only the final sweep
+		J = new double[][] { values };
+		op = new int[][] { policy };
+		recordedIterations = new int[] { sweeps };
+		return (sweeps - 1) * numStates;
+	}
+	
+	/* 
+	 * Description:	Runs prioritized sweeping: only the state with the largest bound on its Bellman error is backed up,
+	 *			after which the bounds of its predecessors grow by how much their J values can change, until every
+	 *			bound is at most epsilon or numIterations * numStates backups have run
+	 *
+	 * Input:		The discount factor (discountFactor)
+	 *			The Bellman error to stop at (epsilon)
+	 *
+	 * Output:		Number of backups that were run
+	 * 
+	 * Effect:		Assigns the final J values (J)
+	 *			Assigns the optimal policies for the final J values (op)
+	 *			Assigns the number of backups in sweeps of all states, rounded up (recordedIterations)
+	 */
+	int prioritizedSweeping(double discountFactor, double epsilon)
+	{
+		// build the predecessors of every state
+		buildPredecessors();
+		
+		// J values and policy, starting as in the first iteration
+		double[] values = new double[numStates];
+		int[] policy = new int[numStates];
+		for(int state = 0; state < numStates; state++) {
+			values[state] = reward[state];
+			policy[state] = firstAction(state);
+		}
+		
+		// the initial bound of every state is its Bellman error
+		int[] scratch = new int[numStates];
+		double[] error = new double[numStates];
+		StateQueue queue = new StateQueue(numStates);
+		for(int state = 0; state < numStates; state++) {
+			error[state] = Math.abs(backup(state, values, discountFactor, scratch) - values[state]);
+			if(error[state] > epsilon)
+				queue.raise(state, error[state]);
+		}
+		
+		// loop through backups of the state with the largest bound
+		long maxBackups = (long)numIterations * numStates;
+		int backups = 0;
+		while(!queue.isEmpty() && backups < maxBackups)
+		{
+			// back up the state, after which its Bellman error is zero
+			int state = queue.poll();
+			double value = backup(state, values, discountFactor, policy);
+			double change = Math.abs(value - values[state]);
+			values[state] = value;
+			error[state] = 0;
+			backups++;
+			
+			// the Bellman error of a predecessor grows by at most discount * probability * change
+			for(int e = predStart[state]; e < predStart[state+1]; e++) {
+				int pred = predecessor[e];
+				error[pred] += discountFactor * predProbability[e] * change;
+				if(error[pred] > epsilon)
+					queue.raise(pred, error[pred]);
+			}
+		}
+		
+		// select the optimal policies for the final J values
+		for(int state = 0; state < numStates; state++)
+			backup(state, values, discountFactor, policy);
+		
+		// keep only the final J values
+		J = new double[][] { values };
+		op = new int[][] { policy };
+		recordedIterations = new int[] { 1 + (backups + numStates - 1) / numStates };
+		return backups;
+	}
+	
+	/* 
+	 * Description:	Runs labeled real-time dynamic programming (LRTDP) from a start state: greedy trajectories are simulated
+	 *			from the start state, backing up only the states they visit, and a state is labeled solved once
+	 *			every state reachable from it under the greedy policy has a Bellman error of at most epsilon; the
+	 *			trials stop when the start state is solved. J values start at the upper bound
+	 *			max(maxReward, maxReward / (1 - discount)), and every trajectory is cut after numIterations steps
+	 *
+	 * Input:		The start state (startState)
+	 *			The discount factor, below 1 (discountFactor)
+	 *			The Bellman error to stop at (epsilon)
+	 *			Seed of the random successor states (seed)
+	 *
+	 * Output:		Number of backups that were run
+	 * 
+	 * Effect:		Assigns the converged J values of the solved states, and NaN for the other states, whose values may
+	 *				still be far above the true ones (J)
+	 *			Assigns the optimal policies of the solved states; those of the other states are not meaningful (op)
+	 *			Assigns the number of trials (recordedIterations)
+	 */
+	int realTimeDynamicProgramming(int startState, double discountFactor, double epsilon, long seed)
+	{
+		// the upper bound below only exists for a discount factor below 1
+		if(discountFactor >= 1)
+			throw new IllegalArgumentException("Real-time dynamic programming needs a discount factor below 1");
+		
+		// every J value starts at an upper bound, so that the greedy policy explores states it has not backed up; with
+		// negative rewards, a state without possible actions keeps its reward, which is above maxReward / (1 - discount)
+		double maxReward = reward[0];
+		for(int state = 1; state < numStates; state++)
+			maxReward = Math.max(maxReward, reward[state]);
+		double[] values = new double[numStates];
+		Arrays.fill(values, Math.max(maxReward, maxReward / (1 - discountFactor)));
+		int[] policy = new int[numStates];
+		boolean[] solved = new boolean[numStates];
+		
+		// states of the current trajectory, and the stacks and marks of the labeling step
+		int[] trajectory = new int[Math.max(numIterations, 1)];
+		int[] open = new int[numStates];
+		int[] closed = new int[numStates];
+		int[] mark = new int[numStates];
+		int[] counters = new int[2];
+		Random random = new Random(seed);
+		
+		// loop through trials until the start state is solved
+		int trials = 0;
+		while(!solved[startState])
+		{
+			// follow the greedy policy from the start state, backing up every state on the way
+			int length = 0;
+			int state = startState;
+			while(!solved[state] && length < trajectory.length) {
+				trajectory[length++] = state;
+				values[state] = backup(state, values, discountFactor, policy);
+				counters[0]++;
+				if(stateStart[state] == stateStart[state+1])
+					break;
+				state = sampleSuccessor(state, policy[state], random);
+			}
+			
+			// try to label the states of the trajectory, last first, stopping at the first one that is not solved
+			while(length > 0) {
+				counters[1]++;
+				if(!checkSolved(trajectory[--length], values, policy, solved, discountFactor, epsilon, open, closed, mark, counters))
+					break;
+			}
+			trials++;
+		}
+		
+		// keep only the J values of the solved states, which are the only converged ones
+		for(int state = 0; state < numStates; state++)
+			if(!solved[state])
+				values[state] = Double.NaN;
+		J = new double[][] { values };
+		op = new int[][] { policy };
+		recordedIterations = new int[] { trials };
+		return counters[0];
+	}
+	
+	/* 
+	 * Description:	Labels a state and every unsolved state reachable from it under the greedy policy as solved if all of
+	 *			them have a Bellman error of at most epsilon, otherwise backs them up; utilized by realTimeDynamicProgramming
+	 *
+	 * Input:		The state (state)
+	 *			The J values (values)
+	 *			The policy (policy)
+	 *			Whether every state is solved (solved)
+	 *			The discount factor (discountFactor)
+	 *			The Bellman error to stop at (epsilon)
+	 *			Stack of states to visit, one slot per state (open)
+	 *			States that were visited, one slot per state (closed)
+	 *			The call that last visited every state (mark)
+	 *			Number of backups and calls so far (counters)
+	 *
+	 * Output:		True if the state was labeled solved, otherwise false
+	 * 
+	 * Effect:		Labels the visited states as solved, or backs them up (solved, values, policy)
+	 *			Counts the backups (counters)
+	 */
+	boolean checkSolved(int state, double[] values, int[] policy, boolean[] solved, double discountFactor,
+			double epsilon, int[] open, int[] closed, int[] mark, int[] counters)
+	{
+		// a state that is already solved needs no labeling
+		if(solved[state])
+			return true;
+		
+		// visit the states reachable under the greedy policy, without going past states with a large Bellman error
+		boolean allSolved = true;
+		int numOpen = 0;
+		int numClosed = 0;
+		open[numOpen++] = state;
+		mark[state] = counters[1];
+		while(numOpen > 0)
+		{
+			int s = open[--numOpen];
+			closed[numClosed++] = s;
+			if(Math.abs(backup(s, values, discountFactor, policy) - values[s]) > epsilon) {
+				allSolved = false;
+				continue;
+			}
+			
+			// add the successor states of the greedy action that are neither solved nor visited
+			for(int r = stateStart[s]; r < stateStart[s+1]; r++) {
+				if(rowAction[r] != policy[s])
+					continue;
+				for(int t = rowStart[r]; t < rowStart[r+1]; t++) {
+					int stateTo = successor[t];
+					if(!solved[stateTo] && mark[stateTo] != counters[1]) {
+						mark[stateTo] = counters[1];
+						open[numOpen++] = stateTo;
 					}
-					
-					// set J and optimal policy
-					J[i][state] = Jtemp[bestAction][1];
-					op[i][state] = bestAction;
 				}
 			}
 		}
+		
+		// label every visited state, or back them up in reverse order of their visit
+		if(allSolved) {
+			for(int c = 0; c < numClosed; c++)
+				solved[closed[c]] = true;
+		}
+		else {
+			while(numClosed > 0) {
+				int s = closed[--numClosed];
+				values[s] = backup(s, values, discountFactor, policy);
+				counters[0]++;
+			}
+		}
+		return allSolved;
+	}
+	
+	/* 
+	 * Description:	Samples the successor state of an action according to the probabilities of its transitions
+	 *
+	 * Input:		The state (state)
+	 *			The action (a)
+	 *			The random number generator (random)
+	 *
+	 * Output:		The successor state
+	 * 
+	 * Effect:		N/A
+	 */
+	int sampleSuccessor(int state, int a, Random random)
+	{
+		// find the row of the action
+		int row = stateStart[state];
+		while(row < stateStart[state+1] - 1 && rowAction[row] != a)
+			row++;
+		
+		// draw a point in the total probability of the row and find the transition it falls in
+		double total = 0;
+		for(int t = rowStart[row]; t < rowStart[row+1]; t++)
+			total += probability[t];
+		double point = random.nextDouble() * total;
+		for(int t = rowStart[row]; t < rowStart[row+1] - 1; t++) {
+			point -= probability[t];
+			if(point < 0)
+				return successor[t];
+		}
+		return successor[rowStart[row+1] - 1];
+	}
+	
+	/* 
+	 * Description:	Runs modified policy iteration: the current policy is evaluated with a fixed number of sweeps that only
+	 *			follow the action of the policy, after which the policy is improved greedily, until the policy stops
+	 *			changing or numIterations improvements have run
+	 *
+	 * Input:		The discount factor (discountFactor)
+	 *			Number of evaluation sweeps for every policy (evaluationSweeps)
+	 *
+	 * Output:		Number of improvements that were run
+	 * 
+	 * Effect:		Assigns the J values of the final policy (J)
+	 *			Assigns the final policy (op)
+	 *			Assigns the number of improvements (recordedIterations)
+	 */
+	int policyIteration(double discountFactor, int evaluationSweeps)
+	{
+		// J values and policy, starting as in the first iteration
+		double[] values = new double[numStates];
+		int[] policy = new int[numStates];
+		int[] greedy = new int[numStates];
+		for(int state = 0; state < numStates; state++) {
+			values[state] = reward[state];
+			policy[state] = firstAction(state);
+		}
+		
+		// loop through improvements until the policy stops changing
+		int improvements = 0;
+		boolean changed = true;
+		while(changed && improvements < numIterations)
+		{
+			// evaluate the policy in place
+			for(int sweep = 0; sweep < evaluationSweeps; sweep++)
+				for(int state = 0; state < numStates; state++)
+					values[state] = actionValue(state, policy[state], values, discountFactor);
+			
+			// improve the policy, keeping the current action unless another one is strictly better
+			changed = false;
+			for(int state = 0; state < numStates; state++) {
+				double best = backup(state, values, discountFactor, greedy);
+				if(greedy[state] != policy[state] && best > actionValue(state, policy[state], values, discountFactor)) {
+					policy[state] = greedy[state];
+					changed = true;
+				}
+			}
+			improvements++;
+		}
+		
+		// keep only the final policy
+		J = new double[][] { values };
+		op = new int[][] { policy };
+		recordedIterations = new int[] { improvements };
+		return improvements;
+	}
+	
+	/* 
+	 * Description:	Calculates the J value of a state when taking a given action; utilized by policy iteration
+	 *
+	 * Input:		The state (state)
+	 *			The action (a)
+	 *			The J values (values)
+	 *			The discount factor (discountFactor)
+	 *
+	 * Output:		The J value of taking the action, or the reward if the action is not possible
+	 * 
+	 * Effect:		N/A
+	 */
+	double actionValue(int state, int a, double[] values, double discountFactor)
+	{
+		// find the row of the action
+		for(int r = stateStart[state]; r < stateStart[state+1]; r++)
+		{
+			if(rowAction[r] == a) {
+				// summation of actions and J values
+				double sum = 0;
+				for(int t = rowStart[r]; t < rowStart[r+1]; t++)
+					sum += probability[t] * values[successor[t]];
+				return sum * discountFactor + reward[state];
+			}
+		}
+		
+		// the action is not possible
+		return reward[state];
+	}
+	
+	/* 
+	 * Description:	Builds the predecessors of every state, with the largest probability of reaching the state from
+	 *			each of them; utilized by prioritized sweeping
+	 *
+	 * Input:		N/A
+	 *
+	 * Output:		N/A
+	 * 
+	 * Effect:		Assigns the predecessors of every state (predStart, predecessor, predProbability)
+	 */
+	void buildPredecessors()
+	{
+		// only build the predecessors once
+		if(predStart != null)
+			return;
+		
+		// count the transitions into every state
+		int numTransitions = rowStart[stateStart[numStates]];
+		predStart = new int[numStates + 1];
+		for(int t = 0; t < numTransitions; t++)
+			predStart[successor[t] + 1]++;
+		for(int state = 0; state < numStates; state++)
+			predStart[state+1] += predStart[state];
+		
+		// fill in the predecessors, keeping one entry per predecessor with the largest probability
+		int[] fill = Arrays.copyOf(predStart, numStates);
+		int[] last = new int[numStates];
+		Arrays.fill(last, -1);
+		predecessor = new int[numTransitions];
+		predProbability = new double[numTransitions];
+		for(int state = 0; state < numStates; state++) {
+			for(int t = rowStart[stateStart[state]]; t < rowStart[stateStart[state+1]]; t++) {
+				int to = successor[t];
+				
+				// the state was already added as a predecessor of to by another action
+				if(last[to] >= predStart[to] && predecessor[last[to]] == state) {
+					predProbability[last[to]] = Math.max(predProbability[last[to]], probability[t]);
+					continue;
+				}
+				last[to] = fill[to];
+				predecessor[fill[to]] = state;
+				predProbability[fill[to]] = probability[t];
+				fill[to]++;
+			}
+		}
+		
+		// compact the entries, dropping the room left by repeated predecessors
+		int next = 0;
+		for(int state = 0; state < numStates; state++) {
+			int start = predStart[state];
+			predStart[state] = next;
+			for(int e = start; e < fill[state]; e++) {
+				predecessor[next] = predecessor[e];
+				predProbability[next] = predProbability[e];
+				next++;
+			}
+		}
+		predStart[numStates] = next;
+	}
+	
+	/* 
+	 * Task that sweeps a range of states of an MDP, splitting it in halves until it is small enough and taking the
+	 * largest residual of the halves
+	 */
+	static class SweepTask extends RecursiveTask<Double> {
+		private static final long serialVersionUID = 1L;
+		
+		// number of states below which a range is swept directly
+		static final int GRAIN = 1024;
+		
+		MDP mdp;
+		double[] Jprev, Jnext;
+		int[] policy;
+		double discountFactor;
+		int from, to;
+		
+		SweepTask(MDP mdp, double[] Jprev, double[] Jnext, int[] policy, double discountFactor, int from, int to)
+		{
+			this.mdp = mdp;
+			this.Jprev = Jprev;
+			this.Jnext = Jnext;
+			this.policy = policy;
+			this.discountFactor = discountFactor;
+			this.from = from;
+			this.to = to;
+		}
+		
+		protected Double compute()
+		{
+			// sweep a small range directly
+			if(to - from <= GRAIN)
+				return mdp.sweep(Jprev, Jnext, policy, discountFactor, from, to);
+			
+			// otherwise sweep both halves in parallel
+			int middle = (from + to) >>> 1;
+			SweepTask left = new SweepTask(mdp, Jprev, Jnext, policy, discountFactor, from, middle);
+			SweepTask right = new SweepTask(mdp, Jprev, Jnext, policy, discountFactor, middle, to);
+			left.fork();
+			double rightResidual = right.compute();
+			return Math.max(left.join(), rightResidual);
+		}
+	}
+	
+	/* 
+	 * Description:	Selects the action available to a state that leads to the lowest numbered state; utilized as the
+	 *			policy of the first iteration
+	 *
+	 * Input:		The state (state)
+	 *
+	 * Output:		The selected action, or 0 if no action is available
+	 * 
+	 * Effect:		N/A
+	 */
+	int firstAction(int state)
+	{
+		// loop through the possible actions, whose successor states are in increasing order
+		int best = 0;
+		int bestStateTo = numStates;
+		for(int r = stateStart[state]; r < stateStart[state+1]; r++)
+		{
+			if(successor[rowStart[r]] < bestStateTo) {
+				bestStateTo = successor[rowStart[r]];
+				best = rowAction[r];
+			}
+		}
+		return best;
+	}
+	
+	/* 
+	 * Description:	Calculates the new J value of a state using Bellman's equation, only visiting the possible actions
+	 *			of the state and their successor states
+	 *
+	 * Input:		The state (state)
+	 *			The previous J values (Jprev)
+	 *			The discount factor (discountFactor)
+	 *			The policy to set the best action in (policy)
+	 *
+	 * Output:		The new J value of the state
+	 * 
+	 * Effect:		Assigns the best action of the state (policy)
+	 */
+	double backup(int state, double[] Jprev, double discountFactor, int[] policy)
+	{
+		// initially no action is selected as the best action
+		int bestAction = 0;
+		double bestJ = reward[state];
+		boolean bestActionDefined = false;
+		
+		// loop through the possible actions
+		for(int r = stateStart[state]; r < stateStart[state+1]; r++)
+		{
+			// summation of actions and previous J values
+			double sum = 0;
+			for(int t = rowStart[r]; t < rowStart[r+1]; t++)
+				sum += probability[t] * Jprev[successor[t]];
+			
+			// calculation of possible J value
+			double value = sum * discountFactor + reward[state];
+			
+			// if either no action has been selected yet or the J value of the selected best action is less than that of action r, set the best action to be action r
+			if(!bestActionDefined || value > bestJ) {
+				bestAction = rowAction[r];
+				bestJ = value;
+				bestActionDefined = true;
+			}
+		}
+		
+		// set optimal policy and return J
+		policy[state] = bestAction;
+		return bestJ;
 	}
 	
 	/* 
@@ -283,11 +1522,11 @@ public class MDP {
 	 */
 	void display()
 	{
-		// loop through iterations
-		for(int i = 0; i < numIterations; i++)
+		// loop through the iterations that were kept
+		for(int i = 0; i < J.length; i++)
 		{
 			// print at the beginning of each iteration
-			System.out.printf("After iteration %d: ", i+1);
+			System.out.printf("After iteration %d: ", recordedIterations[i]);
 			
 			// loop through states and print state, optimal policy, and J value
 			for(int state = 0; state < numStates; state++)
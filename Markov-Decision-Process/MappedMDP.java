@@ -0,0 +1,644 @@
+/*
+ * MappedMDP.java
+ * Date: 2018
+ *
+ * Description:
+ * 		This file contains the class definition for MappedMDP representing a Markov Decision Process whose
+ * 			rewards and possible actions are kept outside of the heap.
+ *
+ * 		The MappedMDP class maintains the number of iterations to be run, the number of states, actions,
+ * 			possible actions and transitions, two arrays of the state names and the action names, the
+ * 			store file that holds the rewards and the sparse possible actions mapped into memory in chunks,
+ * 			the position of every section of the store, and the J values and optimal policy actions of the
+ * 			final iteration.
+ *
+ * 		It is also responsible for saving the store of an MDP once, or building it by streaming the input file
+ * 			twice for a model that does not fit on the heap, so that later runs only map it, and for running
+ * 			value iteration over the mapped store until the Bellman residual drops below a given epsilon,
+ * 			reading the pages of the store in order and leaving their caching to the operating system.
+ *
+ */
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public class MappedMDP {
+	// identifies a store file
+	static final int MAGIC = 0x4D445031;
+
+	// every chunk of the store is mapped separately, since a single mapping is limited to 2GB; sections are
+	// aligned to 8 bytes and the chunk size is a multiple of 8, so a value never crosses two chunks
+	static final int CHUNK_SHIFT = 30;
+	static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+	int numIterations, numStates, numActions;
+	long numRows, numTransitions;
+	String[] stateNames;
+	String[] actionNames;
+	MappedByteBuffer[] chunks;
+	long rewardStart, stateStartStart, rowActionStart, rowStartStart, successorStart, probabilityStart;
+	double[] J;
+	int[] op;
+	int recordedIterations;
+
+	/*
+	 * Description:	Constructor that maps a store file saved by save
+	 *
+	 * Input:		Number of iterations (iterations)
+	 *			Store file (storeFile)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Assigns the number of iterations (numIterations)
+	 *			Assigns the number of states, actions, possible actions and transitions (numStates, numActions, numRows, numTransitions)
+	 *			Assigns the entire arrays of state and action names (stateNames, actionNames)
+	 *			Assigns the mapped chunks of the store and the positions of its sections (chunks, rewardStart,
+	 *				stateStartStart, rowActionStart, rowStartStart, successorStart, probabilityStart)
+	 */
+	public MappedMDP(int iterations, String storeFile) throws IOException
+	{
+		numIterations = iterations;
+
+		// read the header and the names
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(storeFile)));
+		try {
+			if(in.readInt() != MAGIC)
+				throw new IOException(storeFile + " is not an MDP store");
+			numStates = in.readInt();
+			numActions = in.readInt();
+			numRows = in.readLong();
+			numTransitions = in.readLong();
+			long namesLength = in.readLong();
+			stateNames = new String[numStates];
+			for(int state = 0; state < numStates; state++)
+				stateNames[state] = in.readUTF();
+			actionNames = new String[numActions];
+			for(int a = 0; a < numActions; a++)
+				actionNames[a] = in.readUTF();
+
+			// the sections follow the names, in the order they are saved
+			long[] starts = sectionStarts(namesLength, numStates, numRows, numTransitions);
+			rewardStart = starts[0];
+			stateStartStart = starts[1];
+			rowActionStart = starts[2];
+			rowStartStart = starts[3];
+			successorStart = starts[4];
+			probabilityStart = starts[5];
+		}
+		finally {
+			in.close();
+		}
+
+		// map the store in chunks; the mappings stay valid after the channel is closed
+		FileChannel channel = new FileInputStream(storeFile).getChannel();
+		try {
+			long size = channel.size();
+			if(size < probabilityStart + 8L * numTransitions)
+				throw new IOException(storeFile + " is truncated");
+			chunks = new MappedByteBuffer[(int)((size + CHUNK_MASK) >>> CHUNK_SHIFT)];
+			for(int c = 0; c < chunks.length; c++) {
+				long position = (long)c << CHUNK_SHIFT;
+				chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, 1L << CHUNK_SHIFT));
+			}
+		}
+		finally {
+			channel.close();
+		}
+
+		// J and optimal policy are allocated by value iteration
+		J = new double[0];
+		op = new int[0];
+		recordedIterations = 0;
+	}
+
+	/*
+	 * Description:	Saves the rewards and sparse possible actions of an MDP to a store file that can be mapped
+	 *
+	 * Input:		The MDP (mdp)
+	 *			Store file (storeFile)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		N/A
+	 */
+	public static void save(MDP mdp, String storeFile) throws IOException
+	{
+		// the names are written to a buffer first, since their length is part of the header
+		ByteArrayOutputStream names = new ByteArrayOutputStream();
+		DataOutputStream namesOut = new DataOutputStream(names);
+		for(int state = 0; state < mdp.numStates; state++)
+			namesOut.writeUTF(mdp.stateNames[state]);
+		for(int a = 0; a < mdp.numActions; a++)
+			namesOut.writeUTF(mdp.actionNames[a]);
+		namesOut.close();
+
+		// write the header and the names
+		int numRows = mdp.stateStart[mdp.numStates];
+		int numTransitions = mdp.rowStart[numRows];
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(storeFile), 1 << 16));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(mdp.numStates);
+			out.writeInt(mdp.numActions);
+			out.writeLong(numRows);
+			out.writeLong(numTransitions);
+			out.writeLong(names.size());
+			names.writeTo(out);
+
+			// write every section, aligned to 8 bytes; row starts are longs so that a store can hold more transitions than an int.
+			// The written length is kept in a long, since the stream stops counting at Integer.MAX_VALUE
+			long written = headerLength() + names.size();
+			written = pad(out, written);
+			for(int state = 0; state < mdp.numStates; state++)
+				out.writeDouble(mdp.reward[state]);
+			written = pad(out, written + 8L * mdp.numStates);
+			for(int state = 0; state <= mdp.numStates; state++)
+				out.writeLong(mdp.stateStart[state]);
+			written = pad(out, written + 8L * (mdp.numStates + 1));
+			for(int r = 0; r < numRows; r++)
+				out.writeInt(mdp.rowAction[r]);
+			written = pad(out, written + 4L * numRows);
+			for(int r = 0; r <= numRows; r++)
+				out.writeLong(mdp.rowStart[r]);
+			written = pad(out, written + 8L * (numRows + 1));
+			for(int t = 0; t < numTransitions; t++)
+				out.writeInt(mdp.successor[t]);
+			pad(out, written + 4L * numTransitions);
+			for(int t = 0; t < numTransitions; t++)
+				out.writeDouble(mdp.probability[t]);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/*
+	 * Description:	Builds the store file of an input file without reading the MDP onto the heap, in two passes over the
+	 *			input file: the first numbers the states and actions and counts the possible actions and transitions,
+	 *			and the second writes the reward and possible actions of every state to the sections of the store as
+	 *			its line is read; states and actions are numbered as by the single-pass MDP constructor, so the
+	 *			store is the same as the one save writes for that MDP
+	 *
+	 * Input:		Input file (inputFile)
+	 *			Store file (storeFile)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		N/A
+	 */
+	public static void build(String inputFile, String storeFile) throws IOException
+	{
+		// states are numbered in the order their names are first seen, either defining a line or as a successor;
+		// lineOf holds the line that defines each of them, which becomes its final number
+		HashMap<String, Integer> stateIndex = new HashMap<String, Integer>();
+		HashMap<String, Integer> actionIndex = new HashMap<String, Integer>();
+		ArrayList<String> names = new ArrayList<String>();
+		ArrayList<String> actions = new ArrayList<String>();
+		int[] lineOf = MDP.growFilled(new int[0], 16);
+
+		// the (action, stateTo, probability) triples of the current line, and the order of the ones that are kept
+		int[] tripleAction = new int[16];
+		int[] tripleState = new int[16];
+		double[] tripleProb = new double[16];
+		int[] order = new int[16];
+
+		// first pass: number the states and actions, and count the possible actions and transitions
+		int numLines = 0;
+		long numRows = 0;
+		long numTransitions = 0;
+		try(BufferedReader br = new BufferedReader(new FileReader(inputFile), 1 << 16)) {
+			String next;
+			while((next = br.readLine()) != null)
+			{
+				// ignore empty lines
+				if(next.trim().isEmpty())
+					continue;
+				String[] splitLine = next.trim().split("\\s+");
+
+				// number the state of the line, which must not have been defined before
+				int state = MDP.stateNumber(splitLine[0], stateIndex, names);
+				if(state >= lineOf.length)
+					lineOf = MDP.growFilled(lineOf, state + 1);
+				if(lineOf[state] >= 0)
+					throw new IOException("State " + splitLine[0] + " is defined twice in " + inputFile);
+				lineOf[state] = numLines;
+
+				// grow the triple buffers, which only hold one line
+				int numTriples = Math.max(0, (splitLine.length - 2) / 3);
+				if(numTriples > tripleAction.length) {
+					tripleAction = new int[numTriples * 2];
+					tripleState = new int[numTriples * 2];
+					tripleProb = new double[numTriples * 2];
+					order = new int[numTriples * 2];
+				}
+
+				// count the kept triples and their actions; the successor states may be defined by a later line
+				readTriples(splitLine, numTriples, stateIndex, names, actionIndex, actions, tripleAction, tripleState, tripleProb);
+				if(names.size() > lineOf.length)
+					lineOf = MDP.growFilled(lineOf, names.size());
+				int numKept = MDP.keptTriples(tripleAction, tripleState, tripleProb, 0, numTriples, order);
+				numTransitions += numKept;
+				for(int t = 0; t < numKept; t++)
+					if(t == 0 || tripleAction[order[t]] != tripleAction[order[t-1]])
+						numRows++;
+				numLines++;
+			}
+		}
+
+		// every state that is used as a successor must be defined by a line
+		for(int state = 0; state < names.size(); state++)
+			if(lineOf[state] < 0)
+				throw new IOException("State " + names.get(state) + " is used but not defined in " + inputFile);
+
+		// the names, written to a buffer first since their length is part of the header, with the states in line order
+		int numStates = numLines;
+		String[] stateNames = new String[numStates];
+		for(int state = 0; state < numStates; state++)
+			stateNames[lineOf[state]] = names.get(state);
+		ByteArrayOutputStream namesBuffer = new ByteArrayOutputStream();
+		DataOutputStream namesOut = new DataOutputStream(namesBuffer);
+		for(int state = 0; state < numStates; state++)
+			namesOut.writeUTF(stateNames[state]);
+		for(String action : actions)
+			namesOut.writeUTF(action);
+		namesOut.close();
+		stateNames = null;
+
+		// size the store, so that the padding between the sections reads as zeros, and write the header and the names
+		long[] starts = sectionStarts(namesBuffer.size(), numStates, numRows, numTransitions);
+		try(RandomAccessFile file = new RandomAccessFile(storeFile, "rw")) {
+			file.setLength(0);
+			file.setLength(starts[5] + 8L * numTransitions);
+		}
+		try(DataOutputStream out = openAt(storeFile, 0)) {
+			out.writeInt(MAGIC);
+			out.writeInt(numStates);
+			out.writeInt(actions.size());
+			out.writeLong(numRows);
+			out.writeLong(numTransitions);
+			out.writeLong(namesBuffer.size());
+			namesBuffer.writeTo(out);
+		}
+
+		// second pass: write every state to every section at once, each section through its own stream
+		long rows = 0;
+		long transitions = 0;
+		try(BufferedReader br = new BufferedReader(new FileReader(inputFile), 1 << 16);
+				DataOutputStream rewardOut = openAt(storeFile, starts[0]);
+				DataOutputStream stateStartOut = openAt(storeFile, starts[1]);
+				DataOutputStream rowActionOut = openAt(storeFile, starts[2]);
+				DataOutputStream rowStartOut = openAt(storeFile, starts[3]);
+				DataOutputStream successorOut = openAt(storeFile, starts[4]);
+				DataOutputStream probabilityOut = openAt(storeFile, starts[5])) {
+			String next;
+			int line = 0;
+			while((next = br.readLine()) != null)
+			{
+				// ignore empty lines
+				if(next.trim().isEmpty())
+					continue;
+				String[] splitLine = next.trim().split("\\s+");
+				if(line == numStates)
+					throw new IOException(inputFile + " changed while the store was built");
+
+				// write the reward
+				rewardOut.writeDouble(Double.parseDouble(splitLine[1]));
+
+				// find the kept triples, numbering the successor states by their line
+				int numTriples = Math.max(0, (splitLine.length - 2) / 3);
+				readTriples(splitLine, numTriples, stateIndex, names, actionIndex, actions, tripleAction, tripleState, tripleProb);
+				for(int t = 0; t < numTriples; t++)
+					tripleState[t] = lineOf[tripleState[t]];
+				int numKept = MDP.keptTriples(tripleAction, tripleState, tripleProb, 0, numTriples, order);
+
+				// write the triples of the state, one row per possible action
+				stateStartOut.writeLong(rows);
+				for(int t = 0; t < numKept; t++) {
+					int x = order[t];
+					if(t == 0 || tripleAction[x] != tripleAction[order[t-1]]) {
+						rowActionOut.writeInt(tripleAction[x]);
+						rowStartOut.writeLong(transitions);
+						rows++;
+					}
+					successorOut.writeInt(tripleState[x]);
+					probabilityOut.writeDouble(tripleProb[x]);
+					transitions++;
+				}
+				line++;
+			}
+
+			// the starts of the sections end with the number of possible actions and transitions
+			if(line != numStates || rows != numRows || transitions != numTransitions)
+				throw new IOException(inputFile + " changed while the store was built");
+			stateStartOut.writeLong(rows);
+			rowStartOut.writeLong(transitions);
+		}
+	}
+
+	/*
+	 * Description:	Finds the (action, stateTo, probability) triples of a line of the input file, numbering new actions
+	 *			and states in the order they are first seen; utilized by build
+	 *
+	 * Input:		The line split at white space (splitLine)
+	 *			Number of triples of the line (numTriples)
+	 *			Numbers and names of the states seen so far (stateIndex, names)
+	 *			Numbers and names of the actions seen so far (actionIndex, actions)
+	 *			Arrays to store the actions, successor states and probabilities of the triples in (tripleAction,
+	 *				tripleState, tripleProb)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Adds new states and actions to the numbers and names (stateIndex, names, actionIndex, actions)
+	 *			Assigns the first numTriples triples (tripleAction, tripleState, tripleProb)
+	 */
+	static void readTriples(String[] splitLine, int numTriples, HashMap<String, Integer> stateIndex, ArrayList<String> names,
+			HashMap<String, Integer> actionIndex, ArrayList<String> actions, int[] tripleAction, int[] tripleState, double[] tripleProb)
+	{
+		for(int t = 0; t < numTriples; t++) {
+			int j = 2 + 3 * t;
+
+			// get the action, adding it to the list of action names if it has not been previously used
+			String actionName = splitLine[j].substring(1);
+			Integer a = actionIndex.get(actionName);
+			if(a == null) {
+				a = actions.size();
+				actionIndex.put(actionName, a);
+				actions.add(actionName);
+			}
+
+			// set the triple
+			tripleAction[t] = a;
+			tripleState[t] = MDP.stateNumber(splitLine[j+1], stateIndex, names);
+			tripleProb[t] = Double.parseDouble(splitLine[j+2].substring(0, splitLine[j+2].length() - 1));
+		}
+	}
+
+	/*
+	 * Description:	Opens a buffered stream that writes a store file from a position on, without truncating it; utilized by build
+	 *
+	 * Input:		Store file (storeFile)
+	 *			The position (position)
+	 *
+	 * Output:		The stream
+	 *
+	 * Effect:		N/A
+	 */
+	static DataOutputStream openAt(String storeFile, long position) throws IOException
+	{
+		RandomAccessFile file = new RandomAccessFile(storeFile, "rw");
+		try {
+			file.seek(position);
+			return new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(file.getChannel()), 1 << 16));
+		}
+		catch(IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	/*
+	 * Description:	Finds the positions of the sections of a store file, which follow the names in the order they are
+	 *			saved, each aligned to 8 bytes
+	 *
+	 * Input:		Length of the names (namesLength)
+	 *			Number of states, possible actions and transitions (numStates, numRows, numTransitions)
+	 *
+	 * Output:		Array of the positions of the rewards, state starts, row actions, row starts, successors and probabilities
+	 *
+	 * Effect:		N/A
+	 */
+	static long[] sectionStarts(long namesLength, int numStates, long numRows, long numTransitions)
+	{
+		long[] starts = new long[6];
+		starts[0] = align(headerLength() + namesLength);
+		starts[1] = align(starts[0] + 8L * numStates);
+		starts[2] = align(starts[1] + 8L * (numStates + 1));
+		starts[3] = align(starts[2] + 4L * numRows);
+		starts[4] = align(starts[3] + 8L * (numRows + 1));
+		starts[5] = align(starts[4] + 4L * numTransitions);
+		return starts;
+	}
+
+	/*
+	 * Description:	Length of the header of a store file, before the names
+	 *
+	 * Input:		N/A
+	 *
+	 * Output:		The length in bytes
+	 *
+	 * Effect:		N/A
+	 */
+	static long headerLength()
+	{
+		return 4 + 4 + 4 + 8 + 8 + 8;
+	}
+
+	/*
+	 * Description:	Rounds a position of a store file up to a multiple of 8
+	 *
+	 * Input:		The position (position)
+	 *
+	 * Output:		The aligned position
+	 *
+	 * Effect:		N/A
+	 */
+	static long align(long position)
+	{
+		return (position + 7) & ~7L;
+	}
+
+	/*
+	 * Description:	Writes zeros until the written length is a multiple of 8; utilized by save
+	 *
+	 * Input:		The output stream (out)
+	 *			Number of bytes written so far (written)
+	 *
+	 * Output:		Number of bytes written after the zeros
+	 *
+	 * Effect:		N/A
+	 */
+	static long pad(DataOutputStream out, long written) throws IOException
+	{
+		long aligned = align(written);
+		for(long b = written; b < aligned; b++)
+			out.writeByte(0);
+		return aligned;
+	}
+
+	/*
+	 * Description:	Reads values of the mapped store
+	 *
+	 * Input:		Position in the store (position)
+	 *
+	 * Output:		The int, long or double at the position
+	 *
+	 * Effect:		N/A
+	 */
+	int intAt(long position)
+	{
+		return chunks[(int)(position >>> CHUNK_SHIFT)].getInt((int)(position & CHUNK_MASK));
+	}
+
+	long longAt(long position)
+	{
+		return chunks[(int)(position >>> CHUNK_SHIFT)].getLong((int)(position & CHUNK_MASK));
+	}
+
+	double doubleAt(long position)
+	{
+		return chunks[(int)(position >>> CHUNK_SHIFT)].getDouble((int)(position & CHUNK_MASK));
+	}
+
+	/*
+	 * Description:	Runs value iteration over the mapped store until the Bellman residual drops below epsilon or
+	 *			numIterations iterations have run, keeping only the current and previous J values
+	 *
+	 * Input:		The discount factor (discountFactor)
+	 *			The residual to stop at (epsilon)
+	 *
+	 * Output:		Number of iterations that were run
+	 *
+	 * Effect:		Assigns the J values of the final iteration (J)
+	 *			Assigns the optimal policy of the final iteration (op)
+	 *			Assigns the number of iterations (recordedIterations)
+	 */
+	int valueIterationUntilConverged(double discountFactor, double epsilon)
+	{
+		// current and previous J values and the current policy
+		double[] Jprev = new double[numStates];
+		double[] Jcur = new double[numStates];
+		int[] policy = new int[numStates];
+
+		// first iteration
+		for(int state = 0; state < numStates; state++) {
+			Jcur[state] = doubleAt(rewardStart + 8L * state);
+			policy[state] = firstAction(state);
+		}
+
+		// loop through iterations until the residual is small enough
+		int i = 1;
+		double residual = Double.MAX_VALUE;
+		while(i < numIterations && residual >= epsilon)
+		{
+			// the current J values become the previous ones
+			double[] swap = Jprev;
+			Jprev = Jcur;
+			Jcur = swap;
+
+			// back up every state, streaming over the store in order
+			residual = 0;
+			for(int state = 0; state < numStates; state++) {
+				Jcur[state] = backup(state, Jprev, discountFactor, policy);
+				residual = Math.max(residual, Math.abs(Jcur[state] - Jprev[state]));
+			}
+			i++;
+		}
+
+		// keep only the final iteration
+		J = Jcur;
+		op = policy;
+		recordedIterations = i;
+		return i;
+	}
+
+	/*
+	 * Description:	Finds the action chosen in the first iteration, when every action has the same J value: the first
+	 *			action with the lowest successor state, as in MDP
+	 *
+	 * Input:		The state (state)
+	 *
+	 * Output:		The action of the first iteration
+	 *
+	 * Effect:		N/A
+	 */
+	int firstAction(int state)
+	{
+		// loop through the possible actions, whose successor states are in increasing order
+		int best = 0;
+		int bestStateTo = numStates;
+		long rowEnd = longAt(stateStartStart + 8L * (state + 1));
+		for(long r = longAt(stateStartStart + 8L * state); r < rowEnd; r++)
+		{
+			int stateTo = intAt(successorStart + 4L * longAt(rowStartStart + 8L * r));
+			if(stateTo < bestStateTo) {
+				bestStateTo = stateTo;
+				best = intAt(rowActionStart + 4L * r);
+			}
+		}
+		return best;
+	}
+
+	/*
+	 * Description:	Calculates the new J value of a state using Bellman's equation, only visiting the possible actions
+	 *			of the state and their successor states in the mapped store
+	 *
+	 * Input:		The state (state)
+	 *			The previous J values (Jprev)
+	 *			The discount factor (discountFactor)
+	 *			The policy to set the best action in (policy)
+	 *
+	 * Output:		The new J value of the state
+	 *
+	 * Effect:		Assigns the best action of the state (policy)
+	 */
+	double backup(int state, double[] Jprev, double discountFactor, int[] policy)
+	{
+		// initially no action is selected as the best action
+		double reward = doubleAt(rewardStart + 8L * state);
+		int bestAction = 0;
+		double bestJ = reward;
+		boolean bestActionDefined = false;
+
+		// loop through the possible actions
+		long rowEnd = longAt(stateStartStart + 8L * (state + 1));
+		for(long r = longAt(stateStartStart + 8L * state); r < rowEnd; r++)
+		{
+			// summation of actions and previous J values
+			double sum = 0;
+			long transitionEnd = longAt(rowStartStart + 8L * (r + 1));
+			for(long t = longAt(rowStartStart + 8L * r); t < transitionEnd; t++)
+				sum += doubleAt(probabilityStart + 8L * t) * Jprev[intAt(successorStart + 4L * t)];
+
+			// calculation of possible J value
+			double value = sum * discountFactor + reward;
+
+			// if either no action has been selected yet or the J value of the selected best action is less than that of action r, set the best action to be action r
+			if(!bestActionDefined || value > bestJ) {
+				bestAction = intAt(rowActionStart + 4L * r);
+				bestJ = value;
+				bestActionDefined = true;
+			}
+		}
+
+		// set optimal policy and return J
+		policy[state] = bestAction;
+		return bestJ;
+	}
+
+	/*
+	 * Description: Display the J values and optimal policies for each state of the Markov Decision Process after the final iteration
+	 *
+	 * Input:		N/A
+	 *
+	 * Output:		J value for each state of the Markov Decision Process after the final iteration
+	 * 			Optimal policy for each state of the Markov Decision Process after the final iteration
+	 *
+	 * Effect:		N/A
+	 */
+	void display()
+	{
+		// print at the beginning of the iteration
+		System.out.printf("After iteration %d: ", recordedIterations);
+
+		// loop through states and print state, optimal policy, and J value
+		for(int state = 0; state < numStates; state++)
+			System.out.printf("(%s %s %.4f) ", stateNames[state], actionNames[op[state]], J[state]);
+
+		// print new line
+		System.out.printf("\n");
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * ShardWorker.java
+ * Date: 2018
+ *
+ * Description:
+ * 		This program backs up one range of the states of a Markov Decision Process, as one of the worker
+ * 			processes of MDP.valueIterationSharded.
+ *
+ * 		It reads the input file itself, connects to the coordinator over loopback TCP, tells it the states
+ * 			outside of its range that its states lead to, and then on every iteration receives the previous
+ * 			J values of those states, backs up its own states and sends back their new J values and its
+ * 			Bellman residual. Once the coordinator stops the iterations it sends back the policy of its states.
+ *
+ * 		Every message is a sequence of big-endian ints and doubles whose counts are fixed by the handshake:
+ * 			worker to coordinator:	shard, number of outside states, the outside states (handshake)
+ * 						residual, new J values of the range (every iteration)
+ * 						policy of the range (after the last iteration)
+ * 			coordinator to worker:	SWEEP, previous J values of the outside states (every iteration)
+ * 						STOP (after the last iteration)
+ *
+ * 		Usage: java ShardWorker port inputFile shard numShards discountFactor
+ *
+ */
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+
+public class ShardWorker {
+	// commands sent by the coordinator
+	static final int SWEEP = 1;
+	static final int STOP = 0;
+
+	public static void main(String[] args) throws IOException
+	{
+		int port = Integer.parseInt(args[0]);
+		String inputFile = args[1];
+		int shard = Integer.parseInt(args[2]);
+		int numShards = Integer.parseInt(args[3]);
+		double discountFactor = Double.parseDouble(args[4]);
+
+		// read the Markov Decision Process and find the range of the shard
+		MDP mdp = new MDP(1, inputFile);
+		int from = rangeStart(mdp.numStates, shard, numShards);
+		int to = rangeStart(mdp.numStates, shard + 1, numShards);
+		int[] outside = outsideStates(mdp, from, to);
+
+		// connect to the coordinator and send the handshake
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		socket.setTcpNoDelay(true);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+		out.writeInt(shard);
+		out.writeInt(outside.length);
+		for(int o = 0; o < outside.length; o++)
+			out.writeInt(outside[o]);
+		out.flush();
+
+		// previous J values of the range and the states outside of it, new J values of the range, and the policy,
+		// starting as in the first iteration
+		double[] Jprev = new double[mdp.numStates];
+		double[] Jnext = new double[mdp.numStates];
+		int[] policy = new int[mdp.numStates];
+		for(int state = from; state < to; state++) {
+			Jnext[state] = mdp.reward[state];
+			policy[state] = mdp.firstAction(state);
+		}
+
+		// loop through the iterations of the coordinator
+		while(in.readInt() == SWEEP)
+		{
+			// the new J values of the range become the previous ones, and the outside ones are received
+			System.arraycopy(Jnext, from, Jprev, from, to - from);
+			for(int o = 0; o < outside.length; o++)
+				Jprev[outside[o]] = in.readDouble();
+
+			// back up the range and send back the residual and new J values
+			double residual = mdp.sweep(Jprev, Jnext, policy, discountFactor, from, to);
+			out.writeDouble(residual);
+			for(int state = from; state < to; state++)
+				out.writeDouble(Jnext[state]);
+			out.flush();
+		}
+
+		// send back the final policy of the range
+		for(int state = from; state < to; state++)
+			out.writeInt(policy[state]);
+		out.flush();
+		socket.close();
+	}
+
+	/*
+	 * Description:	Finds the first state of a shard, so that the states are split into numShards ranges of nearly equal size
+	 *
+	 * Input:		Number of states (numStates)
+	 *			The shard (shard)
+	 *			Number of shards (numShards)
+	 *
+	 * Output:		The first state of the shard
+	 *
+	 * Effect:		N/A
+	 */
+	static int rangeStart(int numStates, int shard, int numShards)
+	{
+		return (int)((long)numStates * shard / numShards);
+	}
+
+	/*
+	 * Description:	Finds the successor states of a range that are outside of it, in increasing order
+	 *
+	 * Input:		The Markov Decision Process (mdp)
+	 *			The first state of the range (from)
+	 *			The state after the last one of the range (to)
+	 *
+	 * Output:		Array of the outside successor states
+	 *
+	 * Effect:		N/A
+	 */
+	static int[] outsideStates(MDP mdp, int from, int to)
+	{
+		// mark every successor of the range outside of it
+		boolean[] needed = new boolean[mdp.numStates];
+		int count = 0;
+		for(int t = mdp.rowStart[mdp.stateStart[from]]; t < mdp.rowStart[mdp.stateStart[to]]; t++) {
+			int stateTo = mdp.successor[t];
+			if((stateTo < from || stateTo >= to) && !needed[stateTo]) {
+				needed[stateTo] = true;
+				count++;
+			}
+		}
+
+		// list the marked states
+		int[] outside = new int[count];
+		count = 0;
+		for(int state = 0; state < mdp.numStates; state++)
+			if(needed[state])
+				outside[count++] = state;
+		return outside;
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * StateQueue.java
+ * Date: 2018
+ *
+ * Description:
+ * 		This file contains the class definition for StateQueue.
+ *
+ * 		The StateQueue class maintains a binary max-heap of states keyed by their priority, the priority of
+ * 			every state, and the position of every state in the heap (-1 if it is not in the heap).
+ *
+ * 		It is also responsible for raising the priority of a state (adding it if needed) and removing the
+ * 			state with the highest priority; it is utilized by prioritized sweeping in MDP.
+ *
+ */
+
+public class StateQueue {
+	int size;
+	int[] heap;
+	int[] position;
+	double[] priority;
+
+	/* Description:	Creates an empty queue for the provided number of states
+	 *
+	 * Input:		Number of states (numStates)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Initializes the heap, positions and priorities (heap, position, priority)
+	 */
+	public StateQueue(int numStates)
+	{
+		size = 0;
+		heap = new int[numStates];
+		position = new int[numStates];
+		priority = new double[numStates];
+		for(int state = 0; state < numStates; state++)
+			position[state] = -1;
+	}
+
+	/* Description: Determines if the queue is empty
+	 *
+	 * Input:		N/A
+	 *
+	 * Output:		True if no state is in the queue, otherwise false
+	 *
+	 * Effect:		N/A
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/* Description: Sets the priority of a state if it is higher than its current one, adding the state if it is not in the queue
+	 *
+	 * Input:		The state (state)
+	 *				The new priority (p)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Updates the heap, positions and priorities (heap, position, priority)
+	 */
+	public void raise(int state, double p)
+	{
+		// add the state at the bottom of the heap
+		if(position[state] < 0) {
+			heap[size] = state;
+			position[state] = size;
+			size++;
+			priority[state] = p;
+		}
+		else if(p <= priority[state])
+			return;
+		else
+			priority[state] = p;
+
+		// move the state up until its parent has a higher priority
+		siftUp(position[state]);
+	}
+
+	/* Description: Removes the state with the highest priority
+	 *
+	 * Input:		N/A
+	 *
+	 * Output:		The removed state
+	 *
+	 * Effect:		Updates the heap and positions (heap, position)
+	 */
+	public int poll()
+	{
+		// take the top of the heap and move the bottom state in its place
+		int top = heap[0];
+		position[top] = -1;
+		size--;
+		if(size > 0) {
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	/* Description: Moves the state at a position up the heap until its parent has a higher priority
+	 *
+	 * Input:		The position (i)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Updates the heap and positions (heap, position)
+	 */
+	void siftUp(int i)
+	{
+		int state = heap[i];
+		while(i > 0) {
+			int parent = (i - 1) >>> 1;
+			if(priority[heap[parent]] >= priority[state])
+				break;
+			heap[i] = heap[parent];
+			position[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = state;
+		position[state] = i;
+	}
+
+	/* Description: Moves the state at a position down the heap until its children have lower priorities
+	 *
+	 * Input:		The position (i)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Updates the heap and positions (heap, position)
+	 */
+	void siftDown(int i)
+	{
+		int state = heap[i];
+		while(true) {
+			int child = 2 * i + 1;
+			if(child >= size)
+				break;
+			if(child + 1 < size && priority[heap[child+1]] > priority[heap[child]])
+				child++;
+			if(priority[heap[child]] <= priority[state])
+				break;
+			heap[i] = heap[child];
+			position[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = state;
+		position[state] = i;
+	}
+}
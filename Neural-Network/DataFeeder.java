@@ -0,0 +1,228 @@
+/*
+ * DataFeeder.java
+ * Date: 2018
+ *
+ * Description:
+ * 		This file contains the class definition for DataFeeder.
+ *
+ * 		The DataFeeder class maintains two reusable blocks of instances, each a flat row-major int array,
+ * 			the queues used to hand them between a background reader thread and the trainer, and the
+ * 			file being read.
+ *
+ * 		It is also responsible for reading the file over and over (one pass per epoch) in the background,
+ * 			parsing the next block of instances into one block while the trainer consumes the other.
+ *
+ */
+
+import java.io.*;
+import java.util.concurrent.ArrayBlockingQueue;
+
+public class DataFeeder {
+	/*
+	 * Block of instances: the values of rows instances, attributes.length values per instance
+	 */
+	static class Block {
+		int[] data;
+		int rows;
+	}
+
+	String file;
+	int numValues, blockRows;
+	ArrayBlockingQueue<Block> empty;
+	ArrayBlockingQueue<Block> full;
+	Thread reader;
+	volatile IOException failure;
+
+	/* Description:	Creates the two blocks and starts the background reader thread
+	 *
+	 * Input:		File to read, whose first line holds the attribute names (trainingFile)
+	 *			Number of values in each instance, including the class (values)
+	 *			Number of instances in each block (rows)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Assigns the file, number of values and block size (file, numValues, blockRows)
+	 *			Assigns the queues with both blocks empty (empty, full)
+	 *			Starts the reader thread (reader)
+	 */
+	public DataFeeder(String trainingFile, int values, int rows)
+	{
+		file = trainingFile;
+		numValues = values;
+		blockRows = Math.max(rows, 1);
+
+		// both blocks start out empty
+		empty = new ArrayBlockingQueue<Block>(2);
+		full = new ArrayBlockingQueue<Block>(2);
+		for(int b = 0; b < 2; b++) {
+			Block block = new Block();
+			block.data = new int[blockRows * numValues];
+			empty.add(block);
+		}
+
+		// start reading in the background
+		reader = new Thread(this::read);
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/* Description: Reads the file over and over, filling empty blocks and handing them to the trainer; run by the reader thread
+	 *
+	 * Input:		N/A
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Fills the blocks (empty, full)
+	 */
+	void read()
+	{
+		try {
+			// loop through passes over the file
+			boolean anyRows = true;
+			while(anyRows)
+			{
+				anyRows = false;
+
+				// the reader is closed even when the pass is interrupted by close or fails
+				try(BufferedReader br = new BufferedReader(new FileReader(file), 1 << 16)) {
+					// skip any empty lines and the first line (attributes)
+					String next = br.readLine();
+					while(next != null && next.trim().isEmpty())
+						next = br.readLine();
+
+					// fill blocks until the end of the file
+					Block block = empty.take();
+					block.rows = 0;
+					while((next = br.readLine()) != null) {
+						if(parseLine(next, block.data, block.rows * numValues)) {
+							block.rows++;
+							anyRows = true;
+
+							// hand a full block to the trainer and wait for the other one to be free
+							if(block.rows == blockRows) {
+								full.put(block);
+								block = empty.take();
+								block.rows = 0;
+							}
+						}
+					}
+
+					// hand over the last, partly filled block of the pass
+					if(block.rows > 0)
+						full.put(block);
+					else
+						empty.put(block);
+				}
+			}
+		}
+		catch(IOException e) {
+			failure = e;
+		}
+		catch(InterruptedException e) {
+			return;
+		}
+
+		// signal the trainer that there is nothing more to read
+		Block end = new Block();
+		end.rows = -1;
+		full.offer(end);
+	}
+
+	/* Description: Parses the integer values of one line into a block without creating any objects; utilized by the reader thread
+	 *
+	 * Input:		The line (line)
+	 *			Array of the block (data)
+	 *			Position of the instance in the array (offset)
+	 *
+	 * Output:		True if the line held an instance, false if it was empty
+	 *
+	 * Effect:		Assigns the values of the instance (data)
+	 */
+	boolean parseLine(String line, int[] data, int offset) throws IOException
+	{
+		int count = 0;
+		int i = 0;
+		int length = line.length();
+
+		// loop through the values of the line
+		while(i < length)
+		{
+			// skip whitespace
+			while(i < length && Character.isWhitespace(line.charAt(i)))
+				i++;
+			if(i == length)
+				break;
+
+			// parse the sign and digits of the value
+			boolean negative = false;
+			if(line.charAt(i) == '-') {
+				negative = true;
+				i++;
+			}
+			int value = 0;
+			while(i < length && !Character.isWhitespace(line.charAt(i))) {
+				char ch = line.charAt(i);
+				if(ch < '0' || ch > '9')
+					throw new IOException("Invalid value in " + file + ": " + line);
+				value = value * 10 + (ch - '0');
+				i++;
+			}
+			if(count == numValues)
+				throw new IOException("Too many values in " + file + ": " + line);
+			data[offset + count] = negative ? -value : value;
+			count++;
+		}
+
+		// an empty line holds no instance
+		if(count == 0)
+			return false;
+		if(count != numValues)
+			throw new IOException("Too few values in " + file + ": " + line);
+		return true;
+	}
+
+	/* Description: Waits for the next full block; the block must be handed back with release once it has been used
+	 *
+	 * Input:		N/A
+	 *
+	 * Output:		The next block of instances, or null if the file holds no instances
+	 *
+	 * Effect:		Takes a block from the full queue (full)
+	 */
+	public Block next() throws IOException, InterruptedException
+	{
+		Block block = full.take();
+		if(block.rows < 0) {
+			if(failure != null)
+				throw failure;
+			return null;
+		}
+		return block;
+	}
+
+	/* Description: Hands a used block back to the reader thread
+	 *
+	 * Input:		The used block (block)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Puts the block in the empty queue (empty)
+	 */
+	public void release(Block block)
+	{
+		empty.add(block);
+	}
+
+	/* Description: Stops the reader thread
+	 *
+	 * Input:		N/A
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Interrupts the reader thread (reader)
+	 */
+	public void close()
+	{
+		reader.interrupt();
+	}
+}
@@ -0,0 +1,410 @@
+/*
+ * MultiLayerNetwork.java
+ * Date: 2018
+ *
+ * Description:
+ * 		This file contains the class definition for MultiLayerNetwork.
+ *
+ * 		The MultiLayerNetwork class maintains the number of training instances, iterations, mini-batch size
+ * 			and learning rate from the user, a String array of the attributes found in the training/test
+ * 			set (used for displaying), the widths of every layer, the training set as one flat row-major
+ * 			array, and the weights, gradients, activations and deltas of every layer as flat row-major
+ * 			arrays.
+ *
+ * 		It is also responsible for training (with back propagation on mini-batches), testing, and
+ * 			displaying the results that are produced based on the user's provided training set, test set,
+ * 			and widths of the hidden layers.
+ *
+ * 		All arrays are allocated once in the constructor, so training does not allocate per step.
+ *
+ */
+
+import java.io.*;
+import java.util.Random;
+import java.util.Scanner;
+
+public class MultiLayerNetwork {
+	// number of rows/columns handled together by the matrix kernels
+	static final int BLOCK = 64;
+
+	int numTrainingInstances, numIterations, batchSize, numLayers;
+	double learningRate, lastLoss;
+	String[] attributes;
+	int[] widths;
+	int[] trainingSet;
+	double[][] weights;
+	double[][] gradients;
+	double[][] activations;
+	double[][] deltas;
+
+	/* Description:
+	 *
+	 * Input:		Training set file (trainingFile)
+	 *			Number of instances (instances)
+	 *			Number of iterations (iterations)
+	 *			Learning rate (lr)
+	 *			Widths of the hidden layers (hiddenWidths)
+	 *			Number of instances in each mini-batch (batch)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Assigns number of training instances (numTrainingInstances)
+	 * 			Assigns number of iterations (numIterations)
+	 * 			Assigns learning rate (learningRate)
+	 * 			Assigns mini-batch size (batchSize)
+	 * 			Assigns the entire array of attribute names (attributes)
+	 * 			Assigns the widths of all layers, including input and output (widths)
+	 *			Assigns the entire flat array of training set values (trainingSet)
+	 *			Initialize the weights of every layer with small random values (weights)
+	 *			Initialize the gradients, activations and deltas of every layer (gradients, activations, deltas)
+	 */
+	public MultiLayerNetwork(String trainingFile, int instances, int iterations, double lr, int[] hiddenWidths, int batch) throws FileNotFoundException
+	{
+		// initialize variables
+		numTrainingInstances = instances;
+		numIterations = iterations;
+		learningRate = lr;
+		batchSize = Math.max(batch, 1);
+
+		// count number of instances in training file
+		Scanner sc = new Scanner(new File(trainingFile));
+
+		// skip any empty lines
+		String next = sc.nextLine();
+		while(next.trim().isEmpty())
+			next = sc.nextLine();
+
+		// identifies the classes from the first line of the training data
+		attributes = next.split("\\s+");
+
+		// set up the widths of the layers: the inputs, the hidden layers and the single output unit
+		numLayers = hiddenWidths.length + 1;
+		widths = new int[numLayers + 1];
+		widths[0] = attributes.length - 1;
+		for(int l = 0; l < hiddenWidths.length; l++)
+			widths[l+1] = hiddenWidths[l];
+		widths[numLayers] = 1;
+
+		// set up a flat training set array, one row of attributes.length values per instance
+		trainingSet = new int[numTrainingInstances * attributes.length];
+		for(int i = 0; i < numTrainingInstances; i++) {
+			next = sc.nextLine();
+			if(!next.trim().isEmpty()) {
+				String[] splitLine = next.split("\\s+");
+				for(int j = 0; j < attributes.length; j++)
+					trainingSet[i * attributes.length + j] = Integer.parseInt(splitLine[j]);
+			}
+			else
+				i--;
+		}
+		sc.close();
+
+		// weights of layer l form a widths[l+1] x (widths[l]+1) matrix, the last column being the bias
+		Random random = new Random(1);
+		weights = new double[numLayers][];
+		gradients = new double[numLayers][];
+		for(int l = 0; l < numLayers; l++) {
+			weights[l] = new double[widths[l+1] * (widths[l] + 1)];
+			gradients[l] = new double[weights[l].length];
+			double range = 1.0 / Math.sqrt(widths[l] + 1);
+			for(int w = 0; w < weights[l].length; w++)
+				weights[l][w] = (random.nextDouble() * 2 - 1) * range;
+		}
+
+		// activations and deltas of layer l form a batchSize x widths[l] matrix
+		activations = new double[numLayers + 1][];
+		deltas = new double[numLayers + 1][];
+		for(int l = 0; l <= numLayers; l++) {
+			activations[l] = new double[batchSize * widths[l]];
+			deltas[l] = new double[batchSize * widths[l]];
+		}
+	}
+
+	/* Description: Calculates the sigmoid of a value
+	 *
+	 * Input:		The value (t)
+	 *
+	 * Output:		The sigmoid of the input
+	 *
+	 * Effect:		N/A
+	 */
+	public double sigmoid(double t) {
+		return 1.0 / (1.0+(Math.pow(Math.E, -t)));
+	}
+
+	/* Description: Trains the network on the training set, one mini-batch per iteration
+	 *
+	 * Input:		N/A
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Assigns the weights of every layer (weights)
+	 * 			Assigns the loss of the last mini-batch (lastLoss)
+	 */
+	public void train()
+	{
+		// position of the next instance in the training set, kept within the training set so that it never overflows
+		int next = 0;
+
+		// loop through iterations
+		for(int i = 0; i < numIterations; i++)
+		{
+			// copy the next mini-batch of instances into the input activations
+			int first = next;
+			for(int b = 0; b < batchSize; b++) {
+				int row = next * attributes.length;
+				for(int a = 0; a < widths[0]; a++)
+					activations[0][b * widths[0] + a] = trainingSet[row + a];
+				next = (next + 1) % numTrainingInstances;
+			}
+
+			// compute the activations of every layer
+			forward(batchSize);
+
+			// compute the deltas of the output layer, using the class values of the mini-batch
+			lastLoss = 0;
+			double[] out = activations[numLayers];
+			for(int b = 0; b < batchSize; b++) {
+				int row = ((first + b) % numTrainingInstances) * attributes.length;
+				double error = out[b] - trainingSet[row + attributes.length - 1];
+				deltas[numLayers][b] = error * out[b] * (1.0 - out[b]);
+				lastLoss += error * error;
+			}
+			lastLoss /= batchSize;
+
+			// propagate the deltas back and update the weights of every layer
+			for(int l = numLayers - 1; l >= 0; l--) {
+				gradient(l, batchSize);
+				if(l > 0)
+					backward(l, batchSize);
+				double step = learningRate / batchSize;
+				for(int w = 0; w < weights[l].length; w++)
+					weights[l][w] -= step * gradients[l][w];
+			}
+		}
+	}
+
+	/* Description: Computes the activations of every layer for the first rows of the input activations
+	 *
+	 * Input:		Number of rows to compute (rows)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Assigns the activations of every layer after the input (activations)
+	 */
+	void forward(int rows)
+	{
+		// loop through layers
+		for(int l = 0; l < numLayers; l++)
+		{
+			double[] in = activations[l];
+			double[] out = activations[l+1];
+			double[] w = weights[l];
+			int numIn = widths[l];
+			int numOut = widths[l+1];
+
+			// out = sigmoid(in * w^T + bias), computed in blocks so that a block of weight rows stays in cache
+			for(int b0 = 0; b0 < rows; b0 += BLOCK) {
+				int b1 = Math.min(b0 + BLOCK, rows);
+				for(int j0 = 0; j0 < numOut; j0 += BLOCK) {
+					int j1 = Math.min(j0 + BLOCK, numOut);
+					for(int b = b0; b < b1; b++) {
+						int inRow = b * numIn;
+						for(int j = j0; j < j1; j++) {
+							int wRow = j * (numIn + 1);
+							double dp = w[wRow + numIn];
+							for(int k = 0; k < numIn; k++)
+								dp += w[wRow + k] * in[inRow + k];
+							out[b * numOut + j] = sigmoid(dp);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/* Description: Computes the weight gradients of a layer from its deltas and input activations; utilized during training
+	 *
+	 * Input:		Layer (l)
+	 * 			Number of rows in the mini-batch (rows)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Assigns the gradients of the layer (gradients)
+	 */
+	void gradient(int l, int rows)
+	{
+		double[] in = activations[l];
+		double[] d = deltas[l+1];
+		double[] g = gradients[l];
+		int numIn = widths[l];
+		int numOut = widths[l+1];
+
+		// initialize gradients to zero
+		for(int w = 0; w < g.length; w++)
+			g[w] = 0;
+
+		// g = d^T * [in, 1], accumulated one contiguous gradient row at a time
+		for(int j0 = 0; j0 < numOut; j0 += BLOCK) {
+			int j1 = Math.min(j0 + BLOCK, numOut);
+			for(int b = 0; b < rows; b++) {
+				int inRow = b * numIn;
+				for(int j = j0; j < j1; j++) {
+					double dj = d[b * numOut + j];
+					if(dj == 0)
+						continue;
+					int gRow = j * (numIn + 1);
+					for(int k = 0; k < numIn; k++)
+						g[gRow + k] += dj * in[inRow + k];
+					g[gRow + numIn] += dj;
+				}
+			}
+		}
+	}
+
+	/* Description: Propagates the deltas of a layer back to the layer before it; utilized during training
+	 *
+	 * Input:		Layer (l)
+	 * 			Number of rows in the mini-batch (rows)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Assigns the deltas of the layer before (deltas)
+	 */
+	void backward(int l, int rows)
+	{
+		double[] in = activations[l];
+		double[] d = deltas[l+1];
+		double[] prev = deltas[l];
+		double[] w = weights[l];
+		int numIn = widths[l];
+		int numOut = widths[l+1];
+
+		// prev = (d * w without the bias column) scaled by the derivative of the sigmoid
+		for(int b = 0; b < rows; b++) {
+			int inRow = b * numIn;
+			for(int k = 0; k < numIn; k++)
+				prev[inRow + k] = 0;
+			for(int j = 0; j < numOut; j++) {
+				double dj = d[b * numOut + j];
+				if(dj == 0)
+					continue;
+				int wRow = j * (numIn + 1);
+				for(int k = 0; k < numIn; k++)
+					prev[inRow + k] += dj * w[wRow + k];
+			}
+			for(int k = 0; k < numIn; k++)
+				prev[inRow + k] *= in[inRow + k] * (1.0 - in[inRow + k]);
+		}
+	}
+
+	/* Description: Tests the results on the test file and returns the accuracy
+	 *
+	 * Input:		Test set file (testFile)
+	 *
+	 * Output:		Accuracy of the training results on the test file
+	 *
+	 * Effect:		N/A
+	 */
+	public double test(String testFile) throws FileNotFoundException
+	{
+		// create a Scanner for reading the test file
+		Scanner sc = new Scanner(new File(testFile));
+
+		// ignore empty lines and the first line (attributes)
+		String next = sc.nextLine();
+		while(next.trim().isEmpty())
+			next = sc.nextLine();
+
+		// keep track of the total number of instances and the number of correct classifications
+		int numInstances = 0;
+		int numCorrect = 0;
+
+		// loop through the lines of the test file
+		while(sc.hasNextLine())
+		{
+			// ignore empty lines
+			next = sc.nextLine();
+			if(!next.trim().isEmpty())
+			{
+				// increment the total number of instances
+				numInstances++;
+
+				// get the next line of the test file
+				String[] splitLine = next.split("\\s+");
+
+				// determine if the next instance is classified correctly, if it is increment the number of correct classifications
+				if(checkInstance(splitLine))
+					numCorrect++;
+			}
+		}
+		sc.close();
+
+		// calculate the accuracy of the network on the test file
+		double accuracy = ((double)numCorrect/(double)numInstances) * 100;
+
+		// return the accuracy of the network on the test file
+		return accuracy;
+	}
+
+	/* Description: Determine if the provided instance is classified correctly; utilized during testing
+	 *
+	 * Input:		Array containing the instance values for the attributes and class (splitLine)
+	 *
+	 * Output:		True or false
+	 *
+	 * Effect:		Overwrites the first row of the activations (activations)
+	 */
+	public boolean checkInstance(String[] splitLine)
+	{
+		// copy the instance into the first row of the input activations
+		for(int a = 0; a < widths[0]; a++)
+			activations[0][a] = Integer.parseInt(splitLine[a]);
+
+		// compute the output of the network for that row
+		forward(1);
+
+		// if the network predicts the correct output return true, otherwise return false
+		if(Math.round(activations[numLayers][0]) == Integer.parseInt(splitLine[attributes.length-1]))
+			return true;
+		else
+			return false;
+	}
+
+	/* Description: Display the results
+	 *
+	 * Input:		N/A
+	 *
+	 * Output:		Weights of every unit of every layer and the loss of the last mini-batch are displayed appropriately
+	 *
+	 * Effect:		N/A
+	 */
+	public void display()
+	{
+		// loop through layers
+		for(int l = 0; l < numLayers; l++)
+		{
+			// loop through the units of the layer
+			for(int j = 0; j < widths[l+1]; j++)
+			{
+				// print at the beginning of each unit
+				System.out.printf("Layer %d unit %d: ", l+1, j+1);
+
+				// print the weights of all inputs, named after the attributes for the first layer
+				int wRow = j * (widths[l] + 1);
+				for(int k = 0; k < widths[l]; k++) {
+					if(l == 0)
+						System.out.printf("w(%s) = %.4f, ", attributes[k], weights[l][wRow + k]);
+					else
+						System.out.printf("w(%d) = %.4f, ", k+1, weights[l][wRow + k]);
+				}
+
+				// print bias
+				System.out.printf("bias = %.4f\n", weights[l][wRow + widths[l]]);
+			}
+		}
+
+		// print loss
+		System.out.printf("loss = %.4f\n", lastLoss);
+	}
+}
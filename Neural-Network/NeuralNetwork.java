@@ -14,9 +14,23 @@
  * 		It is also responsible for training, testing, and displaying the results that are produced based
  * 			on the user's provided training set and test set.
  * 
+ * 		Training can either be done sequentially (keeping the weights of every iteration) or with several
+ * 			threads that update one shared weight vector without locks (Hogwild), in which case only the
+ * 			final weights are kept.
+ * 
+ * 		The training set can also be kept in a sparse form (the positions and values of the non-zero
+ * 			attributes of every instance), in which case each training and scoring step only touches the
+ * 			non-zero attributes of the instance.
+ * 
+ * 		Training can also stop early, once the loss on the training set or a held-out set stops improving,
+ * 			keeping the weights with the lowest loss, or stream the training file block by block instead
+ * 			of keeping it in memory.
+ * 
  */
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Scanner;
 
 public class NeuralNetwork {
@@ -26,6 +40,12 @@ public class NeuralNetwork {
 	double[] output;
 	int[][] trainingSet;
 	double[][] weights;
+	int recordedFrom;
+	boolean sparse;
+	int[] rowStart;
+	int[] featureIndex;
+	int[] featureValue;
+	int[] labels;
 	
 	/* Description:	
 	 *
@@ -40,16 +60,41 @@ public class NeuralNetwork {
 	 * 			Assigns number of iterations (numIterations)
 	 * 			Assigns learning rate (learningRate)
 	 * 			Assigns the entire array of attribute names (attributes)
-	 * 			Initialize the array of output values (output)
+	 * 			Initialize the array of output values as empty (output)
 	 *			Assigns the entire matrix of training set values (trainingSet)
-	 *			Initialize the matrix of weights (weights)
+	 *			Initialize the matrix of weights as empty (weights)
 	 */
 	public NeuralNetwork(String trainingFile, int instances, int iterations, double lr) throws FileNotFoundException
+	{
+		this(trainingFile, instances, iterations, lr, false);
+	}
+	
+	/* Description:	
+	 *
+	 * Input:		Training set file (trainingFile)
+	 *			Number of instances (instances)
+	 *			Number of iterations (iterations)
+	 *			Learning rate (lr)
+	 *			Whether the training set is kept in sparse form (sparseSet)
+	 *
+	 * Output:		N/A
+	 * 
+	 * Effect:		Assigns number of training instances (numTrainingInstances)
+	 * 			Assigns number of iterations (numIterations)
+	 * 			Assigns learning rate (learningRate)
+	 * 			Assigns the entire array of attribute names (attributes)
+	 * 			Initialize the array of output values as empty (output)
+	 *			Assigns either the entire matrix of training set values (trainingSet) or the sparse
+	 *				training set (rowStart, featureIndex, featureValue, labels)
+	 *			Initialize the matrix of weights as empty (weights)
+	 */
+	public NeuralNetwork(String trainingFile, int instances, int iterations, double lr, boolean sparseSet) throws FileNotFoundException
 	{
 		// initialize variables
 		numTrainingInstances = instances;
 		numIterations = iterations;
 		learningRate = lr;
+		sparse = sparseSet;
 		
 		// count number of instances in training file
 		Scanner sc = new Scanner(new File(trainingFile));
@@ -62,13 +107,16 @@ public class NeuralNetwork {
 		// identifies the classes from the first line of the training data
 		attributes = next.split("\\s+");
 		
-		// initialize weights matrix and output array with zeroes
-		weights = new double[numIterations][attributes.length - 1];
-		output = new double[numIterations];
-		for(int i = 0; i < numIterations; i++) {
-			output[i] = 0;
-			for(int j = 0; j < attributes.length - 1; j++)
-				weights[i][j] = 0;
+		// weights matrix and output array are allocated by the training method that is used
+		weights = new double[0][attributes.length - 1];
+		output = new double[0];
+		recordedFrom = 0;
+		
+		// set up a sparse training set
+		if(sparse) {
+			readSparse(sc);
+			sc.close();
+			return;
 		}
 		
 		// set up a training set matrix
@@ -86,6 +134,122 @@ public class NeuralNetwork {
 		sc.close();
 	}
 	
+	/* Description:	Creates a neural network that is trained by streaming the training file, so only the first line
+	 * 			(attributes) is read here
+	 *
+	 * Input:		Training set file (trainingFile)
+	 *			Number of iterations (iterations)
+	 *			Learning rate (lr)
+	 *
+	 * Output:		N/A
+	 * 
+	 * Effect:		Assigns number of iterations (numIterations)
+	 * 			Assigns learning rate (learningRate)
+	 * 			Assigns the entire array of attribute names (attributes)
+	 * 			Initialize the array of output values as empty (output)
+	 *			Initialize the matrix of training set values as empty (trainingSet)
+	 *			Initialize the matrix of weights as empty (weights)
+	 */
+	public NeuralNetwork(String trainingFile, int iterations, double lr) throws FileNotFoundException
+	{
+		// initialize variables
+		numTrainingInstances = 0;
+		numIterations = iterations;
+		learningRate = lr;
+		
+		// create a Scanner for reading the first line of the training file
+		Scanner sc = new Scanner(new File(trainingFile));
+		
+		// skip any empty lines
+		String next = sc.nextLine();
+		while(next.trim().isEmpty())
+			next = sc.nextLine();
+		sc.close();
+		
+		// identifies the classes from the first line of the training data
+		attributes = next.split("\\s+");
+		
+		// weights matrix and output array are allocated by the training method that is used
+		weights = new double[0][attributes.length - 1];
+		output = new double[0];
+		recordedFrom = 0;
+		trainingSet = new int[0][attributes.length];
+	}
+	
+	/* Description: Reads the training set keeping only the non-zero attributes of every instance; utilized by the constructor
+	 * 
+	 * Input:		Scanner positioned after the first line of the training set (sc)
+	 * 
+	 * Output:		N/A
+	 * 
+	 * Effect:		Assigns the position of the first non-zero attribute of every instance (rowStart)
+	 * 			Assigns the attribute index of every non-zero attribute (featureIndex)
+	 * 			Assigns the value of every non-zero attribute (featureValue)
+	 * 			Assigns the class value of every instance (labels)
+	 */
+	void readSparse(Scanner sc)
+	{
+		// start with room for a few non-zero attributes per instance and grow when needed
+		rowStart = new int[numTrainingInstances + 1];
+		featureIndex = new int[Math.max(numTrainingInstances, 16)];
+		featureValue = new int[featureIndex.length];
+		labels = new int[numTrainingInstances];
+		int nnz = 0;
+		
+		// non-zero attributes of the current instance
+		int[] indices = new int[attributes.length - 1];
+		int[] values = new int[attributes.length - 1];
+		
+		// loop through the instances
+		for(int i = 0; i < numTrainingInstances; i++) {
+			String next = sc.nextLine();
+			if(!next.trim().isEmpty()) {
+				String[] splitLine = next.trim().split("\\s+");
+				rowStart[i] = nnz;
+				
+				// keep only the non-zero attributes
+				int count = nonZeroAttributes(splitLine, indices, values);
+				if(nnz + count > featureIndex.length) {
+					featureIndex = Arrays.copyOf(featureIndex, Math.max(nnz * 2, nnz + count));
+					featureValue = Arrays.copyOf(featureValue, featureIndex.length);
+				}
+				System.arraycopy(indices, 0, featureIndex, nnz, count);
+				System.arraycopy(values, 0, featureValue, nnz, count);
+				nnz += count;
+				
+				// keep the class value
+				labels[i] = Integer.parseInt(splitLine[attributes.length - 1]);
+			}
+			else
+				i--;
+		}
+		rowStart[numTrainingInstances] = nnz;
+	}
+	
+	/* Description: Finds the non-zero attributes of an instance; utilized when reading the training and test sets in sparse form
+	 * 
+	 * Input:		Array containing the instance values for the attributes and class (splitLine)
+	 * 			Array to store the attribute indices of the non-zero attributes in (indices)
+	 * 			Array to store the values of the non-zero attributes in (values)
+	 * 
+	 * Output:		Number of non-zero attributes
+	 * 
+	 * Effect:		Assigns the first elements of the indices and values (indices, values)
+	 */
+	int nonZeroAttributes(String[] splitLine, int[] indices, int[] values)
+	{
+		int count = 0;
+		for(int j = 0; j < attributes.length - 1; j++) {
+			int value = Integer.parseInt(splitLine[j]);
+			if(value != 0) {
+				indices[count] = j;
+				values[count] = value;
+				count++;
+			}
+		}
+		return count;
+	}
+	
 	/* Description: Calculates the sigmoid of a value
 	 * 
 	 * Input:		The value (t)
@@ -109,6 +273,17 @@ public class NeuralNetwork {
 	 */
 	public void train()
 	{
+		// a sparse training set only keeps the final weights
+		if(sparse) {
+			trainSparse();
+			return;
+		}
+		
+		// initialize weights matrix and output array with zeroes, one row for every iteration
+		weights = new double[numIterations][attributes.length - 1];
+		output = new double[numIterations];
+		recordedFrom = 0;
+		
 		// loop through iterations
 		for(int i = 0; i < numIterations; i++)
 		{
@@ -132,6 +307,364 @@ public class NeuralNetwork {
 		}
 	}
 
+	/* Description: Trains the neural network on the sparse training set, only touching the non-zero attributes
+	 * 			of each instance
+	 * 
+	 * Input:		N/A
+	 * 
+	 * Output:		N/A
+	 * 
+	 * Effect:		Assigns the final output (output)
+	 * 			Assigns the final weights (weights)
+	 */
+	public void trainSparse()
+	{
+		// current weights
+		double[] w = new double[attributes.length - 1];
+		
+		// loop through iterations
+		for(int i = 0; i < numIterations; i++)
+			sparseStep(w, i % numTrainingInstances);
+		
+		// keep only the final weights
+		recordFinal(w, numIterations - 1);
+	}
+	
+	/* Description: Trains the neural network one epoch (a pass over the training set) at a time until the loss stops
+	 * 			improving; the loss is measured on the held-out file if one is given, otherwise on the training set
+	 * 
+	 * Input:		Smallest decrease of the loss that counts as an improvement (tolerance)
+	 * 			Number of epochs without improvement before stopping (patience)
+	 * 			Held-out set file, or null to use the training set (heldOutFile)
+	 * 
+	 * Output:		Number of iterations that were run, at most numIterations
+	 * 
+	 * Effect:		Assigns the final output (output)
+	 * 			Assigns the weights with the lowest loss (weights)
+	 */
+	public int trainUntilConverged(double tolerance, int patience, String heldOutFile) throws FileNotFoundException
+	{
+		// read the held-out set, if there is one
+		int[][] heldOut = null;
+		if(heldOutFile != null)
+			heldOut = readInstances(heldOutFile);
+		
+		// current weights and the weights with the lowest loss so far
+		double[] w = new double[attributes.length - 1];
+		double[] best = new double[attributes.length - 1];
+		double bestLoss = Double.MAX_VALUE;
+		int bestIteration = 0;
+		int epochsWithoutImprovement = 0;
+		
+		// loop through epochs until the iterations run out or the loss stops improving
+		int i = 0;
+		while(i < numIterations && epochsWithoutImprovement < patience)
+		{
+			// train on one pass over the training set
+			for(int row = 0; row < numTrainingInstances && i < numIterations; row++, i++) {
+				if(sparse)
+					sparseStep(w, row);
+				else
+					sgdStep(w, trainingSet[row], 0);
+			}
+			
+			// calculate the mean squared error of the epoch
+			double loss = 0;
+			if(heldOut == null) {
+				for(int row = 0; row < numTrainingInstances; row++) {
+					double error = (sparse ? labels[row] : trainingSet[row][attributes.length - 1]) - instanceOutput(w, row);
+					loss += error * error;
+				}
+				loss /= numTrainingInstances;
+			}
+			else {
+				for(int row = 0; row < heldOut.length; row++) {
+					double dp = 0;
+					for(int attr = 0; attr < attributes.length - 1; attr++)
+						dp += w[attr] * heldOut[row][attr];
+					double error = heldOut[row][attributes.length - 1] - sigmoid(dp);
+					loss += error * error;
+				}
+				loss /= heldOut.length;
+			}
+			
+			// count the epochs that did not improve the loss by more than the tolerance
+			if(bestLoss - loss > tolerance)
+				epochsWithoutImprovement = 0;
+			else
+				epochsWithoutImprovement++;
+			
+			// keep the weights with the lowest loss
+			if(loss < bestLoss) {
+				bestLoss = loss;
+				bestIteration = i - 1;
+				System.arraycopy(w, 0, best, 0, w.length);
+			}
+		}
+		
+		// keep only the best weights
+		recordFinal(best, bestIteration);
+		return i;
+	}
+	
+	/* Description: Reads every instance of a file with the same format as the training set; utilized during training
+	 * 
+	 * Input:		File to read (file)
+	 * 
+	 * Output:		Matrix of the instances in the file
+	 * 
+	 * Effect:		N/A
+	 */
+	int[][] readInstances(String file) throws FileNotFoundException
+	{
+		// create a Scanner for reading the file
+		Scanner sc = new Scanner(new File(file));
+		
+		// ignore empty lines and the first line (attributes)
+		String next = sc.nextLine();
+		while(next.trim().isEmpty())
+			next = sc.nextLine();
+		
+		// loop through the lines of the file
+		ArrayList<int[]> rows = new ArrayList<int[]>();
+		while(sc.hasNextLine())
+		{
+			// ignore empty lines
+			next = sc.nextLine();
+			if(!next.trim().isEmpty())
+			{
+				String[] splitLine = next.trim().split("\\s+");
+				int[] row = new int[attributes.length];
+				for(int j = 0; j < attributes.length; j++)
+					row[j] = Integer.parseInt(splitLine[j]);
+				rows.add(row);
+			}
+		}
+		sc.close();
+		
+		return rows.toArray(new int[rows.size()][]);
+	}
+	
+	/* Description: Trains the neural network by streaming the training file instead of keeping it in memory; a background
+	 * 			thread reads the next block of instances while the current block is being trained on
+	 * 
+	 * Input:		Training set file (trainingFile)
+	 * 			Number of instances in each block (blockRows)
+	 * 
+	 * Output:		N/A
+	 * 
+	 * Effect:		Assigns the final output (output)
+	 * 			Assigns the final weights (weights)
+	 */
+	public void trainStreaming(String trainingFile, int blockRows) throws IOException, InterruptedException
+	{
+		// current weights and output of the last instance
+		double[] w = new double[attributes.length - 1];
+		double lastOutput = 0;
+		
+		// start reading the training file in the background
+		DataFeeder feeder = new DataFeeder(trainingFile, attributes.length, blockRows);
+		
+		// loop through iterations, one instance of the current block at a time
+		int i = 0;
+		try {
+			while(i < numIterations)
+			{
+				// wait for the next block, stopping if the file holds no instances
+				DataFeeder.Block block = feeder.next();
+				if(block == null)
+					break;
+				
+				// train on the instances of the block
+				int row = 0;
+				for(; row < block.rows && i < numIterations; row++, i++)
+					sgdStep(w, block.data, row * attributes.length);
+				
+				// calculate the output on the last instance that was trained on
+				int last = (row - 1) * attributes.length;
+				double dp = 0;
+				for(int attr = 0; attr < attributes.length - 1; attr++)
+					dp += w[attr] * block.data[last + attr];
+				lastOutput = sigmoid(dp);
+				
+				// hand the block back to be refilled
+				feeder.release(block);
+			}
+		}
+		finally {
+			feeder.close();
+		}
+		
+		// keep only the final weights
+		recordFinal(w, i - 1);
+		output[0] = lastOutput;
+	}
+	
+	/* Description: Trains the neural network on the training set with several threads (Hogwild); each thread takes
+	 * 			a disjoint slice of the training set and updates the shared weight vector without locks
+	 * 
+	 * Input:		Number of threads, at least 1; no more threads are used than iterations or instances (numThreads)
+	 * 			Whether the result must be reproducible (deterministic)
+	 * 
+	 * Output:		N/A
+	 * 
+	 * Effect:		Assigns the final output (output)
+	 * 			Assigns the final weights (weights)
+	 */
+	public void trainParallel(int numThreads, boolean deterministic) throws InterruptedException
+	{
+		if(numThreads < 1)
+			throw new IllegalArgumentException("Number of threads must be at least 1");
+		
+		// a thread without an iteration or an instance would take no steps
+		numThreads = Math.max(1, Math.min(numThreads, Math.min(numIterations, numTrainingInstances)));
+		
+		// weight vector shared by all threads
+		final double[] shared = new double[attributes.length - 1];
+		
+		// in deterministic mode every thread trains its own copy, which are averaged in thread order afterwards
+		final double[][] local = new double[numThreads][];
+		
+		// whether every thread takes any steps, and the number of threads that do
+		boolean[] stepped = new boolean[numThreads];
+		int numStepped = 0;
+		
+		// create the threads, each with its own slice of the training set and share of the iterations
+		Thread[] workers = new Thread[numThreads];
+		for(int t = 0; t < numThreads; t++)
+		{
+			final int start = (int)((long)t * numTrainingInstances / numThreads);
+			final int end = (int)((long)(t+1) * numTrainingInstances / numThreads);
+			final int steps = numIterations / numThreads + (t < numIterations % numThreads ? 1 : 0);
+			final double[] w = deterministic ? new double[attributes.length - 1] : shared;
+			local[t] = w;
+			stepped[t] = steps > 0 && end > start;
+			if(stepped[t])
+				numStepped++;
+			
+			workers[t] = new Thread(() -> {
+				// an empty slice has nothing to train on
+				if(end > start)
+					for(int s = 0; s < steps; s++) {
+						if(sparse)
+							sparseStep(w, start + (s % (end - start)));
+						else
+							sgdStep(w, trainingSet[start + (s % (end - start))], 0);
+					}
+			});
+			workers[t].start();
+		}
+		
+		// wait for every thread to finish
+		for(int t = 0; t < numThreads; t++)
+			workers[t].join();
+		
+		// average the weights of the threads that took steps in a fixed order, since the others still hold the start value
+		if(deterministic)
+			for(int t = 0; t < numThreads; t++)
+				if(stepped[t])
+					for(int attr = 0; attr < attributes.length - 1; attr++)
+						shared[attr] += local[t][attr] / numStepped;
+		
+		// keep only the final weights
+		recordFinal(shared, numIterations - 1);
+	}
+	
+	/* Description: Performs one stochastic gradient descent step of the sigmoid unit on one instance; utilized during training
+	 * 
+	 * Input:		Weights to update (w)
+	 * 			Array containing the instance (x)
+	 * 			Position of the instance in the array (offset)
+	 * 
+	 * Output:		N/A
+	 * 
+	 * Effect:		Updates the weights (w)
+	 */
+	void sgdStep(double[] w, int[] x, int offset)
+	{
+		// calculate the dot product
+		double wx = 0;
+		for(int attr = 0; attr < attributes.length - 1; attr++)
+			wx += w[attr] * x[offset + attr];
+		double sigmoidWX = sigmoid(wx);
+		
+		// calculate the step shared by all attributes
+		double step = learningRate * (x[offset + attributes.length - 1] - sigmoidWX) * sigmoidWX * (1.0-sigmoidWX);
+		
+		// update the weights of the attributes of the instance
+		for(int attr = 0; attr < attributes.length - 1; attr++)
+			w[attr] += step * x[offset + attr];
+	}
+	
+	/* Description: Performs one stochastic gradient descent step of the sigmoid unit on one instance of the
+	 * 			sparse training set; utilized during training
+	 * 
+	 * Input:		Weights to update (w)
+	 * 			Index of the instance (row)
+	 * 
+	 * Output:		N/A
+	 * 
+	 * Effect:		Updates the weights of the non-zero attributes of the instance (w)
+	 */
+	void sparseStep(double[] w, int row)
+	{
+		// calculate the dot product over the non-zero attributes
+		double wx = 0;
+		for(int f = rowStart[row]; f < rowStart[row+1]; f++)
+			wx += w[featureIndex[f]] * featureValue[f];
+		double sigmoidWX = sigmoid(wx);
+		
+		// calculate the step shared by all attributes
+		double step = learningRate * (labels[row] - sigmoidWX) * sigmoidWX * (1.0-sigmoidWX);
+		
+		// update the weights of the non-zero attributes
+		for(int f = rowStart[row]; f < rowStart[row+1]; f++)
+			w[featureIndex[f]] += step * featureValue[f];
+	}
+	
+	/* Description: Keeps only the final weights instead of the weights of every iteration; utilized by the training methods
+	 * 
+	 * Input:		Final weights (w)
+	 * 			Iteration that produced the final weights (iteration)
+	 * 
+	 * Output:		N/A
+	 * 
+	 * Effect:		Assigns the final output (output)
+	 * 			Assigns the final weights (weights)
+	 * 			Assigns the iteration of the first kept weights (recordedFrom)
+	 */
+	void recordFinal(double[] w, int iteration)
+	{
+		weights = new double[][] { w };
+		output = new double[1];
+		recordedFrom = Math.max(iteration, 0);
+		
+		// calculate the output on the instance of that iteration
+		if(numTrainingInstances > 0)
+			output[0] = instanceOutput(w, recordedFrom % numTrainingInstances);
+	}
+	
+	/* Description: Calculates the output of the sigmoid unit on one instance of the training set
+	 * 
+	 * Input:		Weights to use (w)
+	 * 			Index of the instance (row)
+	 * 
+	 * Output:		The sigmoid of the dot product of the weights and the instance
+	 * 
+	 * Effect:		N/A
+	 */
+	double instanceOutput(double[] w, int row)
+	{
+		double dp = 0;
+		if(sparse)
+			for(int f = rowStart[row]; f < rowStart[row+1]; f++)
+				dp += w[featureIndex[f]] * featureValue[f];
+		else
+			for(int attr = 0; attr < attributes.length - 1; attr++)
+				dp += w[attr] * trainingSet[row][attr];
+		return sigmoid(dp);
+	}
+	
 	/* Description: Calculates the dot product of the weights and the training set instance on a given iteration; utilized during training
 	 * 
 	 * Input:		Iteration of the weights to consider (weightIndex)
@@ -181,6 +714,10 @@ public class NeuralNetwork {
 		int numInstances = 0;
 		int numCorrect = 0;
 		
+		// non-zero attributes of the current instance, when the network was built on a sparse training set
+		int[] indices = new int[attributes.length - 1];
+		int[] values = new int[attributes.length - 1];
+		
 		// loop through the lines of the test file
 		while(sc.hasNextLine())
 		{
@@ -192,10 +729,18 @@ public class NeuralNetwork {
 				numInstances++;
 				
 				// get the next line of the test file
-				String[] splitLine = next.split("\\s+");
+				String[] splitLine = next.trim().split("\\s+");
 				
-				// determine if the next instance is classified correctly, if it is increment the number of correct classifications
-				if(checkInstance(splitLine))
+				// determine if the next instance is classified correctly, in the same form as the training set, if it is
+				// increment the number of correct classifications
+				boolean correct;
+				if(sparse) {
+					int count = nonZeroAttributes(splitLine, indices, values);
+					correct = checkInstance(indices, values, count, Integer.parseInt(splitLine[attributes.length-1]));
+				}
+				else
+					correct = checkInstance(splitLine);
+				if(correct)
 					numCorrect++;
 			}
 		}
@@ -222,11 +767,12 @@ public class NeuralNetwork {
 		double dp = 0;
 
 		// ensure that there is at least one iteration
-		if(numIterations > 0)
+		if(weights.length > 0)
 			// loop through attributes
 			for(int a = 0; a < attributes.length - 1; a++)
-				// increment dot product by the weight * instance for each attribute
-				dp += (weights[numIterations-1][a] * Integer.parseInt(splitLine[a]));
+				// increment dot product by the weight * instance for each non-zero attribute
+				if(!splitLine[a].equals("0"))
+					dp += (weights[weights.length-1][a] * Integer.parseInt(splitLine[a]));
 
 		// if the sigmoid unit predicts the correct output return true, otherwise return false
 		if(Math.round(sigmoid(dp)) == Integer.parseInt(splitLine[attributes.length-1]))
@@ -235,6 +781,32 @@ public class NeuralNetwork {
 			return false;
 	}
 	
+	/* Description: Determine if the provided sparse instance is classified correctly
+	 * 
+	 * Input:		Attribute indices of the non-zero attributes (indices)
+	 * 			Values of the non-zero attributes (values)
+	 * 			Number of non-zero attributes (count)
+	 * 			Class value of the instance (classValue)
+	 * 
+	 * Output:		True or false
+	 * 
+	 * Effect:		N/A
+	 */
+	public boolean checkInstance(int[] indices, int[] values, int count, int classValue)
+	{
+		// initialize dot product to zero
+		double dp = 0;
+		
+		// ensure that there is at least one iteration
+		if(weights.length > 0)
+			// loop through the non-zero attributes
+			for(int f = 0; f < count; f++)
+				dp += (weights[weights.length-1][indices[f]] * values[f]);
+		
+		// if the sigmoid unit predicts the correct output return true, otherwise return false
+		return Math.round(sigmoid(dp)) == classValue;
+	}
+	
 	/* Description: Display the results
 	 * 
 	 * Input:		N/A
@@ -245,11 +817,11 @@ public class NeuralNetwork {
 	 */
 	public void display()
 	{
-		// loop through iterations
-		for(int i = 0; i < numIterations; i++)
+		// loop through the iterations that were kept
+		for(int i = 0; i < weights.length; i++)
 		{
 			// print at the beginning of each iteration
-			System.out.printf("After iteration %d: ", i+1);
+			System.out.printf("After iteration %d: ", recordedFrom+i+1);
 			
 			// loop through attributes and print weights of all attributes at the iteration
 			for(int attr = 0; attr < attributes.length - 1; attr++)
@@ -0,0 +1,183 @@
+/*
+ * QuantizedScorer.java
+ * Date: 2018
+ *
+ * Description:
+ * 		This file contains the class definition for QuantizedScorer.
+ *
+ * 		The QuantizedScorer class maintains the final weights of a trained NeuralNetwork exported as float
+ * 			values and as symmetric int8 values (with the scale that maps them back), and a lookup table
+ * 			for the sigmoid function.
+ *
+ * 		It is also responsible for scoring instances with the exported weights, accumulating the int8
+ * 			products in an int, and for comparing the accuracy of both exports with the accuracy of the
+ * 			original double weights on the user's provided test set.
+ *
+ */
+
+import java.io.*;
+import java.util.Scanner;
+
+public class QuantizedScorer {
+	// the sigmoid lookup table covers [-RANGE, RANGE], outside of it the sigmoid is treated as 0 or 1
+	static final float RANGE = 16.0f;
+	static final int TABLE_SIZE = 4096;
+
+	NeuralNetwork network;
+	float[] floatWeights;
+	byte[] quantizedWeights;
+	float scale;
+	float[] sigmoidTable;
+
+	/* Description:	Exports the final weights of a trained neural network
+	 *
+	 * Input:		Trained neural network (nn)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Assigns the neural network used for comparison (network)
+	 *			Assigns the float weights (floatWeights)
+	 *			Assigns the int8 weights and their scale (quantizedWeights, scale)
+	 *			Assigns the sigmoid lookup table (sigmoidTable)
+	 */
+	public QuantizedScorer(NeuralNetwork nn)
+	{
+		network = nn;
+		int numWeights = nn.attributes.length - 1;
+
+		// an untrained network has all weights at zero
+		double[] w = nn.weights.length > 0 ? nn.weights[nn.weights.length-1] : new double[numWeights];
+
+		// export the float weights and find the largest absolute weight
+		floatWeights = new float[numWeights];
+		double maxAbs = 0;
+		for(int a = 0; a < numWeights; a++) {
+			floatWeights[a] = (float)w[a];
+			maxAbs = Math.max(maxAbs, Math.abs(w[a]));
+		}
+
+		// export the int8 weights so that the largest absolute weight maps to 127
+		scale = maxAbs > 0 ? (float)(maxAbs / 127.0) : 1.0f;
+		quantizedWeights = new byte[numWeights];
+		for(int a = 0; a < numWeights; a++)
+			quantizedWeights[a] = (byte)Math.max(-127, Math.min(127, Math.round(w[a] / scale)));
+
+		// fill the sigmoid lookup table
+		sigmoidTable = new float[TABLE_SIZE + 1];
+		for(int t = 0; t <= TABLE_SIZE; t++)
+			sigmoidTable[t] = (float)nn.sigmoid(-RANGE + (2 * RANGE * t) / TABLE_SIZE);
+	}
+
+	/* Description: Calculates the sigmoid of a value using the lookup table
+	 *
+	 * Input:		The value (t)
+	 *
+	 * Output:		The sigmoid of the input
+	 *
+	 * Effect:		N/A
+	 */
+	public float fastSigmoid(float t)
+	{
+		if(t <= -RANGE)
+			return 0.0f;
+		if(t >= RANGE)
+			return 1.0f;
+		// floor the position in the table, so that a negative value is never looked up as the entry of 0, whose
+		// sigmoid of 0.5 would round to class 1
+		return sigmoidTable[(int)Math.floor(TABLE_SIZE / 2 + (double)t * TABLE_SIZE / (2 * RANGE))];
+	}
+
+	/* Description: Calculates the output for an instance using the float weights
+	 *
+	 * Input:		Array containing the instance values for the attributes (x)
+	 *
+	 * Output:		The output of the sigmoid unit
+	 *
+	 * Effect:		N/A
+	 */
+	public float scoreFloat(int[] x)
+	{
+		float dp = 0;
+		for(int a = 0; a < floatWeights.length; a++)
+			if(x[a] != 0)
+				dp += floatWeights[a] * x[a];
+		return fastSigmoid(dp);
+	}
+
+	/* Description: Calculates the output for an instance using the int8 weights, accumulating in an int
+	 *
+	 * Input:		Array containing the instance values for the attributes (x)
+	 *
+	 * Output:		The output of the sigmoid unit
+	 *
+	 * Effect:		N/A
+	 */
+	public float scoreInt8(int[] x)
+	{
+		int acc = 0;
+		for(int a = 0; a < quantizedWeights.length; a++)
+			if(x[a] != 0)
+				acc += quantizedWeights[a] * x[a];
+		return fastSigmoid(acc * scale);
+	}
+
+	/* Description: Tests the double, float and int8 weights on the test file
+	 *
+	 * Input:		Test set file (testFile)
+	 *
+	 * Output:		Accuracy of the double weights, followed by the differences of the accuracies of the float and int8
+	 *			weights with it, in that order
+	 *
+	 * Effect:		N/A
+	 */
+	public double[] compare(String testFile) throws FileNotFoundException
+	{
+		// create a Scanner for reading the test file
+		Scanner sc = new Scanner(new File(testFile));
+
+		// ignore empty lines and the first line (attributes)
+		String next = sc.nextLine();
+		while(next.trim().isEmpty())
+			next = sc.nextLine();
+
+		// keep track of the total number of instances and the number of correct classifications of each export
+		int numInstances = 0;
+		int[] numCorrect = new int[3];
+		int[] x = new int[floatWeights.length];
+
+		// loop through the lines of the test file
+		while(sc.hasNextLine())
+		{
+			// ignore empty lines
+			next = sc.nextLine();
+			if(!next.trim().isEmpty())
+			{
+				// increment the total number of instances
+				numInstances++;
+
+				// get the next line of the test file
+				String[] splitLine = next.split("\\s+");
+				for(int a = 0; a < x.length; a++)
+					x[a] = Integer.parseInt(splitLine[a]);
+				int classValue = Integer.parseInt(splitLine[x.length]);
+
+				// determine if the next instance is classified correctly by each set of weights
+				if(network.checkInstance(splitLine))
+					numCorrect[0]++;
+				if(Math.round(scoreFloat(x)) == classValue)
+					numCorrect[1]++;
+				if(Math.round(scoreInt8(x)) == classValue)
+					numCorrect[2]++;
+			}
+		}
+		sc.close();
+
+		// calculate the accuracies
+		double[] accuracy = new double[3];
+		for(int e = 0; e < 3; e++)
+			accuracy[e] = ((double)numCorrect[e]/(double)numInstances) * 100;
+
+		// return the accuracy of the double weights and the differences of the exports with it
+		return new double[] {accuracy[0], accuracy[1] - accuracy[0], accuracy[2] - accuracy[0]};
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * BatchScorer.java
+ * Date: 2018
+ *
+ * Description:
+ * 		This file contains the class definition for BatchScorer.
+ *
+ * 		The BatchScorer class scores a set of instances with every member of an ensemble of built weka
+ * 			classifiers in parallel: the instances are split into one contiguous partition per thread, and
+ * 			every thread scores its partition with its own copies of the members whose classifying is not
+ * 			safe to share between threads, sharing the other members.
+ *
+ * 		It is also responsible for combining the predictions into the number of members that predict
+ * 			class 1 for every instance, or for a cascade that scores the cheapest members first and stops as
+ * 			soon as the remaining members cannot change the majority or a member is confident enough.
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import weka.core.Instances;
+import weka.core.Utils;
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.classifiers.SingleClassifierEnhancer;
+import weka.classifiers.meta.Bagging;
+import weka.classifiers.meta.RandomCommittee;
+import weka.classifiers.trees.RandomForest;
+import weka.classifiers.trees.RandomTree;
+import weka.classifiers.trees.REPTree;
+
+public class BatchScorer {
+	/*
+	 * Work on one partition of the instances: scores the instances from..to-1 with the copies of the members
+	 */
+	interface PartitionTask {
+		long run(Classifier[] copies, int from, int to) throws Exception;
+	}
+
+	/* Description:	Counts the members that predict class 1 for every instance, scoring the partitions of the
+	 *				instances in parallel
+	 *
+	 * Input:		The built members of the ensemble (members)
+	 *				The instances to score (data)
+	 *				Number of threads (numThreads)
+	 *
+	 * Output:		Array of the number of members that predict class 1, one per instance
+	 *
+	 * Effect:		N/A
+	 */
+	public static int[] vote(Classifier[] members, Instances data, int numThreads) throws Exception
+	{
+		int[] votes = new int[data.numInstances()];
+		inPartitions(members, data.numInstances(), numThreads, (copies, from, to) -> {
+			score(copies, data, from, to, votes);
+			return 0;
+		});
+		return votes;
+	}
+
+	/* Description:	Predicts the class of every instance with a cascade, scoring the partitions of the instances in
+	 *				parallel: the members are scored in the order they are given, which should be from the cheapest to
+	 *				the most expensive, stopping once one class has the votes of a majority of all members, or once a
+	 *				member's probability of its class exceeds that of the other class by at least margin, in which case
+	 *				its class is the prediction; the order is fixed, so identical runs make identical predictions
+	 *
+	 * Input:		The built members of the ensemble, from the cheapest to the most expensive (members)
+	 *				The instances to score (data)
+	 *				Number of threads (numThreads)
+	 *				The probability margin that stops the cascade, or more than 1 to only stop on a majority (margin)
+	 *				Array of the predicted classes, one per instance (predictions)
+	 *
+	 * Output:		Number of members that were scored, over all instances
+	 *
+	 * Effect:		Assigns the predicted classes (predictions)
+	 */
+	public static long cascade(Classifier[] members, Instances data, int numThreads, double margin, int[] predictions)
+			throws Exception
+	{
+		return inPartitions(members, data.numInstances(), numThreads, (copies, from, to) -> {
+			long evaluations = 0;
+			int majority = copies.length / 2 + 1;
+
+			// loop through the instances of the partition
+			for(int i = from; i < to; i++)
+			{
+				int[] classVotes = new int[2];
+				int prediction = 0;
+
+				// loop through the members until the outcome is decided
+				for(Classifier member : copies)
+				{
+					double[] distribution = member.distributionForInstance(data.get(i));
+					evaluations++;
+					prediction = Utils.maxIndex(distribution);
+					classVotes[prediction]++;
+					if(classVotes[prediction] >= majority || Math.abs(distribution[1] - distribution[0]) >= margin)
+						break;
+				}
+				predictions[i] = prediction;
+			}
+			return evaluations;
+		});
+	}
+
+	/* Description:	Determines if a built classifier can classify instances from several threads at once
+	 *
+	 * Input:		The classifier (classifier)
+	 *
+	 * Output:		True if it can be shared between threads, otherwise false
+	 *
+	 * Effect:		N/A
+	 */
+	static boolean threadSafe(Classifier classifier)
+	{
+		// trees only read their nodes while classifying, and a random forest is a bag of random trees
+		if(classifier instanceof RandomTree || classifier instanceof REPTree || classifier instanceof RandomForest)
+			return true;
+
+		// bagging and random committees only combine their members, so they are as safe as their base classifier
+		if(classifier instanceof Bagging || classifier instanceof RandomCommittee)
+			return threadSafe(((SingleClassifierEnhancer)classifier).getClassifier());
+
+		// everything else, including random sub spaces (whose members filter every instance through a Remove filter that
+		// keeps state) and attribute selected classifiers (which transform every instance first), is copied
+		return false;
+	}
+
+	/* Description:	Runs a task on every partition of the instances in parallel, each with its own copies of the members
+	 *				that are not thread safe and sharing the ones that are
+	 *
+	 * Input:		The members (members)
+	 *				Number of instances (numInstances)
+	 *				Number of threads (numThreads)
+	 *				The task (task)
+	 *
+	 * Output:		Sum of the results of the task over the partitions
+	 *
+	 * Effect:		N/A
+	 */
+	static long inPartitions(Classifier[] members, int numInstances, int numThreads, PartitionTask task) throws Exception
+	{
+		// one partition per thread, but no more partitions than instances
+		int numPartitions = Math.max(1, Math.min(numThreads, numInstances));
+
+		// a single partition is scored by the members themselves
+		if(numPartitions == 1)
+			return task.run(members, 0, numInstances);
+
+		// score every partition with its own copies of the members that are not thread safe, so memory only grows with the
+		// number of cores for those; partitions do not share any element of the results
+		ExecutorService pool = Executors.newFixedThreadPool(numPartitions);
+		long total = 0;
+		try {
+			List<Future<Long>> partitions = new ArrayList<Future<Long>>();
+			for(int p = 0; p < numPartitions; p++) {
+				final int from = (int)((long)numInstances * p / numPartitions);
+				final int to = (int)((long)numInstances * (p + 1) / numPartitions);
+				partitions.add(pool.submit(() -> {
+					Classifier[] copies = new Classifier[members.length];
+					for(int m = 0; m < members.length; m++)
+						copies[m] = threadSafe(members[m]) ? members[m] : AbstractClassifier.makeCopy(members[m]);
+					return task.run(copies, from, to);
+				}));
+			}
+
+			// wait for every partition, passing on the failure of any of them
+			for(Future<Long> partition : partitions) {
+				try {
+					total += partition.get();
+				}
+				catch(ExecutionException e) {
+					if(e.getCause() instanceof Exception)
+						throw (Exception)e.getCause();
+					throw e;
+				}
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		return total;
+	}
+
+	/* Description:	Adds the predictions of every member for a range of instances to the votes
+	 *
+	 * Input:		The members (members)
+	 *				The instances (data)
+	 *				The first instance of the range (from)
+	 *				The instance after the last one of the range (to)
+	 *				Array of the number of members that predict class 1 (votes)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Adds the predictions of the range (votes)
+	 */
+	static void score(Classifier[] members, Instances data, int from, int to, int[] votes) throws Exception
+	{
+		// score the range one member at a time, so that the model of the member stays in cache
+		for(Classifier member : members)
+			for(int i = from; i < to; i++)
+				votes[i] += (int)member.classifyInstance(data.get(i));
+	}
+}
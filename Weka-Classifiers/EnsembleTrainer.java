@@ -0,0 +1,209 @@
+/*
+ * EnsembleTrainer.java
+ * Date: 2018
+ *
+ * Description:
+ * 		This file contains the class definition for EnsembleTrainer.
+ *
+ * 		The EnsembleTrainer class maintains the members of an ensemble of weka classifiers (their names,
+ * 			classifiers, and option strings), the memory budget for training them, and the time it took to
+ * 			build every member.
+ *
+ * 		It is also responsible for building the members concurrently on a bounded pool of threads: as many
+ * 			members are built at once as the cores and the memory budget allow, and the cores are divided
+ * 			among them as execution slots of the members that build their own iterations in parallel.
+ *
+ * 		Members can also be loaded from and stored in a ModelCache, so that a member is only built again
+ * 			when its training data or options change.
+ *
+ */
+
+import java.security.MessageDigest;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import weka.core.Instances;
+import weka.core.Utils;
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.classifiers.ParallelIteratedSingleClassifierEnhancer;
+
+public class EnsembleTrainer {
+	// estimated bytes used while building one member, per value of the training set
+	static final long BYTES_PER_VALUE = 64;
+
+	List<String> names;
+	List<AbstractClassifier> classifiers;
+	List<String> options;
+	long memoryBudget;
+	long[] buildMillis;
+	ModelCache cache;
+	MessageDigest dataHash;
+
+	/* Description:	Creates an empty ensemble
+	 *
+	 * Input:		Bytes of memory that the members being built at once may use (budget)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Assigns the memory budget (memoryBudget)
+	 *				Initializes the members as empty (names, classifiers, options, buildMillis)
+	 */
+	public EnsembleTrainer(long budget)
+	{
+		names = new ArrayList<String>();
+		classifiers = new ArrayList<AbstractClassifier>();
+		options = new ArrayList<String>();
+		memoryBudget = budget;
+		buildMillis = new long[0];
+	}
+
+	/* Description:	Adds a member to the ensemble, setting its options
+	 *
+	 * Input:		Name of the member, used for reporting (name)
+	 *				The classifier (classifier)
+	 *				The option string of the classifier (optionString)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Adds the member (names, classifiers, options)
+	 */
+	public void add(String name, AbstractClassifier classifier, String optionString) throws Exception
+	{
+		classifier.setOptions(Utils.splitOptions(optionString));
+		names.add(name);
+		classifiers.add(classifier);
+		options.add(optionString);
+	}
+
+	/* Description:	Loads the members from a cache when it holds them, and stores the members that are built in it
+	 *
+	 * Input:		The cache (modelCache)
+	 *				The files the training set is read from, whose contents the members are keyed by (dataFiles)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Assigns the cache and the hash of the data files (cache, dataHash)
+	 */
+	public void useCache(ModelCache modelCache, String... dataFiles) throws IOException
+	{
+		cache = modelCache;
+		dataHash = ModelCache.hashFiles(dataFiles);
+	}
+
+	/* Description:	Returns the members, which are replaced by the loaded classifiers of cache hits while training
+	 *
+	 * Input:		N/A
+	 *
+	 * Output:		Array of the members, in the order they were added
+	 *
+	 * Effect:		N/A
+	 */
+	public Classifier[] members()
+	{
+		return classifiers.toArray(new Classifier[classifiers.size()]);
+	}
+
+	/* Description:	Finds how many members can be built at once, given the cores and the memory budget
+	 *
+	 * Input:		The training set (trainData)
+	 *				Number of members to build (numMembers)
+	 *
+	 * Output:		Number of members to build at once
+	 *
+	 * Effect:		N/A
+	 */
+	int concurrentMembers(Instances trainData, int numMembers)
+	{
+		int cores = Runtime.getRuntime().availableProcessors();
+		long perMember = Math.max(1, (long)trainData.numInstances() * trainData.numAttributes() * BYTES_PER_VALUE);
+		long byMemory = Math.max(1, memoryBudget / perMember);
+		return (int)Math.max(1, Math.min(numMembers, Math.min(cores, byMemory)));
+	}
+
+	/* Description:	Builds every member on the training set, as many at once as concurrentMembers allows, and
+	 *				prints the time it took to build each of them
+	 *
+	 * Input:		The training set (trainData)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Builds the classifiers, or replaces them by the cached ones (classifiers)
+	 *				Assigns the execution slots of the members that build their iterations in parallel (classifiers)
+	 *				Assigns the build time of every member (buildMillis)
+	 */
+	public void train(Instances trainData) throws Exception
+	{
+		// load the members that are cached, which are not built
+		buildMillis = new long[classifiers.size()];
+		String[] keys = new String[classifiers.size()];
+		List<Integer> toBuild = new ArrayList<Integer>();
+		for(int m = 0; m < classifiers.size(); m++) {
+			if(cache != null) {
+				keys[m] = ModelCache.key(dataHash, classifiers.get(m), options.get(m));
+				Classifier cached = cache.load(keys[m]);
+				if(cached instanceof AbstractClassifier) {
+					classifiers.set(m, (AbstractClassifier)cached);
+					System.out.println("Loaded " + names.get(m) + " from the model cache.");
+					continue;
+				}
+			}
+			toBuild.add(m);
+		}
+		if(toBuild.isEmpty())
+			return;
+		
+		// divide the cores among the members being built at once
+		int concurrent = concurrentMembers(trainData, toBuild.size());
+		int slots = Math.max(1, Runtime.getRuntime().availableProcessors() / concurrent);
+		for(int m : toBuild)
+			if(classifiers.get(m) instanceof ParallelIteratedSingleClassifierEnhancer)
+				((ParallelIteratedSingleClassifierEnhancer)classifiers.get(m)).setNumExecutionSlots(slots);
+		System.out.println("Training " + toBuild.size() + " classifiers, " + concurrent + " at a time with " + slots + " slots each...");
+
+		// build every member on its own copy of the training set, since some classifiers change the set they are given,
+		// and try to store it in the cache
+		ExecutorService pool = Executors.newFixedThreadPool(concurrent);
+		try {
+			List<Future<?>> builds = new ArrayList<Future<?>>();
+			for(int member : toBuild) {
+				builds.add(pool.submit(() -> {
+					long start = System.currentTimeMillis();
+					classifiers.get(member).buildClassifier(new Instances(trainData));
+					buildMillis[member] = System.currentTimeMillis() - start;
+					System.out.println("Finished training " + names.get(member) + " in " + (buildMillis[member] / 1000.0) + " s.");
+					// caching is best effort: a member that cannot be stored is still used
+					if(cache != null) {
+						try {
+							cache.store(keys[member], classifiers.get(member));
+						}
+						catch(Exception e) {
+							System.err.println("Warning: cannot store " + names.get(member) + " in the model cache: " + e);
+						}
+					}
+					return null;
+				}));
+			}
+
+			// wait for every member, passing on the failure of any of them
+			for(Future<?> build : builds) {
+				try {
+					build.get();
+				}
+				catch(ExecutionException e) {
+					if(e.getCause() instanceof Exception)
+						throw (Exception)e.getCause();
+					throw e;
+				}
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+}
@@ -8,18 +8,33 @@
  * 			its classifiers (attribute selected classifier, bagging, random committee, random sub space,
  * 			and random forest) to all be used together to predict the class values.
  * 
+ * 		The classifiers are built concurrently by an EnsembleTrainer, as many at once as the cores and
+ * 			memory allow, and the prediction set is scored in parallel partitions by a BatchScorer; with
+ * 			-cascade the cheapest classifiers are scored first, stopping once an instance is decided.
+ * 
+ * 		The data sets are read from arff files, or with -text directly from the text files, and the arff
+ * 			files and predictions are written line by line as they are made.
+ * 
+ * 		Trained classifiers are kept in a ModelCache in the 'model-cache' directory, so that they are only
+ * 			trained again when the training data or their options change.
+ * 
  * 		This program will output:
- * 			An approximate accuracy of the predictions
+ * 			An approximate accuracy of the predictions, or with -cascade the accuracy of the cascade on the
+ * 				instances of the prediction set whose class is known
  * 
  */
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.Scanner;
 
+import weka.core.DenseInstance;
 import weka.core.Instances;
 import weka.core.Utils;
 import weka.core.converters.ConverterUtils.DataSource;
+import weka.classifiers.Classifier;
 import weka.classifiers.Evaluation;
 import weka.classifiers.meta.AttributeSelectedClassifier;
 import weka.classifiers.meta.Bagging;
@@ -28,159 +43,164 @@ import weka.classifiers.meta.RandomSubSpace;
 import weka.classifiers.trees.RandomForest;
 
 public class Main {
+	// probability margin of a classifier that decides an instance in the cascade on its own
+	static final double CASCADE_MARGIN = 0.9;
+	
+	// order the cascade scores the classifiers in, from the cheapest to the most expensive, as indices in the order they
+	// are added (ASC, RF, RSS, B, RC): 10 REP trees, 10 random trees, a random forest, an attribute selection followed by
+	// a random forest, and 10 random forests
+	static final int[] CASCADE_ORDER = {2, 4, 1, 0, 3};
 
 	public static void main(String[] args) throws Exception {
+		String trainFile = "trainAndPrelim.txt";
 		String trainArff = "trainAndPrelim.arff";
 		String predictionFile = "final-nmv-noclass.txt";
 		String predictionArff = "final-nmv-noclass.arff";
+		
+		// with -text the data sets are read directly from the text files, otherwise from the arff files
+		boolean fromText = Arrays.asList(args).contains("-text");
+		
+		// with -cascade every instance is only scored by the classifiers needed to decide it, cheapest first
+		boolean cascade = Arrays.asList(args).contains("-cascade");
 
 		/* Used for making the arff files that are needed for the weka classifiers
 		 makeArff("txt", "arff"); */
 		
-		// count the number of instances in prediction file
-		Scanner sc1 = new Scanner(new File(predictionFile));
-		int numInstances = 0;
-		while(sc1.hasNextLine())
-			if(!sc1.nextLine().trim().isEmpty())
-				numInstances++;
-		sc1.close();
-		
-		// set up the train data source for the weka classifiers
-		DataSource trainSource = new DataSource(trainArff);
-		Instances trainData = trainSource.getDataSet();
+		// set up the train data for the weka classifiers
+		Instances trainData;
+		if(fromText)
+			trainData = readInstances(trainFile);
+		else
+			trainData = new DataSource(trainArff).getDataSet();
 		trainData.setClassIndex(trainData.numAttributes() - 1);
 		
-		// set up the test data source for the weka classifiers
-		DataSource testSource = new DataSource(predictionArff);
-		Instances testData = testSource.getDataSet();
+		// set up the test data for the weka classifiers
+		Instances testData;
+		if(fromText)
+			testData = readInstances(predictionFile);
+		else
+			testData = new DataSource(predictionArff).getDataSet();
 		testData.setClassIndex(testData.numAttributes() - 1);
 
-		// train the attribute selected classifier
-		System.out.println("Start training weka attribute selected classifier...");
+		// set up the five classifiers of the ensemble, building them concurrently within three quarters of the heap
+		EnsembleTrainer trainer = new EnsembleTrainer(Runtime.getRuntime().maxMemory() / 4 * 3);
 		AttributeSelectedClassifier wekaASC = new AttributeSelectedClassifier();
-		String options = "-W weka.classifiers.trees.RandomForest -- -depth 19";
-		wekaASC.setOptions(Utils.splitOptions(options));
-		wekaASC.buildClassifier(trainData);
-		System.out.println("Finished training.");
-		/* Used for collecting statistics
-		Evaluation evalASC = new Evaluation(trainData);
-		evalASC.evaluateModel(wekaASC, testData);
-		System.out.println("ASC Accuracy="+ ((evalASC.correct()/(evalASC.correct()+evalASC.incorrect())) * 100)); */
-		
-		System.out.println("\nStart training weka random forest...");
+		trainer.add("weka attribute selected classifier", wekaASC, "-W weka.classifiers.trees.RandomForest -- -depth 19");
 		RandomForest wekaRF = new RandomForest();
-		options = "-depth 19";
-		wekaRF.setOptions(Utils.splitOptions(options));
-		wekaRF.buildClassifier(trainData);
-		System.out.println("Finished training.");
-		/* Used for collecting statistics
-		Evaluation evalRF = new Evaluation(trainData);
-		evalRF.evaluateModel(wekaRF, testData);
-		System.out.println("RF Accuracy="+ ((evalRF.correct()/(evalRF.correct()+evalRF.incorrect())) * 100)); */
-		
-		System.out.println("\nStart training weka random sub space classifier...");
+		trainer.add("weka random forest", wekaRF, "-depth 19");
 		RandomSubSpace wekaRSS = new RandomSubSpace();
-		options = "-P 0.9 -S 1 -num-slots 1 -I 10 -W weka.classifiers.trees.REPTree -- -M 2 -V 0.001 -N 3 -S 1 -L -1 -I 0.0";
-		wekaRSS.setOptions(Utils.splitOptions(options));
-		wekaRSS.buildClassifier(trainData);
-		System.out.println("Finished training.");
-		/* Used for collecting statistics
-		Evaluation evalRSS = new Evaluation(trainData);
-		evalRSS.evaluateModel(wekaRSS, testData);
-		System.out.println("RSS Accuracy="+ ((evalRSS.correct()/(evalRSS.correct()+evalRSS.incorrect())) * 100)); */
-		
-		System.out.println("\nStart training weka bagging classifier...");
+		trainer.add("weka random sub space classifier", wekaRSS, "-P 0.9 -S 1 -num-slots 1 -I 10 -W weka.classifiers.trees.REPTree -- -M 2 -V 0.001 -N 3 -S 1 -L -1 -I 0.0");
 		Bagging wekaB = new Bagging();
-		options = "-W weka.classifiers.trees.RandomForest";
-		wekaB.setOptions(Utils.splitOptions(options));
-		wekaB.buildClassifier(trainData);
-		System.out.println("Finished training.");
-		/* Used for collecting statistics
-		Evaluation evalB = new Evaluation(trainData);
-		evalB.evaluateModel(wekaB, testData);
-		System.out.println("B Accuracy="+ ((evalB.correct()/(evalB.correct()+evalB.incorrect())) * 100)); */
-		
-		System.out.println("\nStart training weka random committee classifier...");
+		trainer.add("weka bagging classifier", wekaB, "-W weka.classifiers.trees.RandomForest");
 		RandomCommittee wekaRC = new RandomCommittee();
-		options = "-S 1 -num-slots 1 -I 10 -W weka.classifiers.trees.RandomTree -- -K 0 -M 1.0 -V 0.001 -S 1 -depth 19";
-		wekaRC.setOptions(Utils.splitOptions(options));
-		wekaRC.buildClassifier(trainData);
+		trainer.add("weka random committee classifier", wekaRC, "-S 1 -num-slots 1 -I 10 -W weka.classifiers.trees.RandomTree -- -K 0 -M 1.0 -V 0.001 -S 1 -depth 19");
+		
+		// classifiers trained on the same data with the same options are loaded from the model cache instead of trained again
+		ModelCache cache = new ModelCache("model-cache", 4L << 30);
+		if(fromText)
+			trainer.useCache(cache, trainFile, "attr.txt");
+		else
+			trainer.useCache(cache, trainArff);
+		
+		// train the classifiers, in the order ASC, RF, RSS, B, RC
+		System.out.println("Start training...");
+		trainer.train(trainData);
 		System.out.println("Finished training.");
+		Classifier[] members = trainer.members();
 		/* Used for collecting statistics
-		Evaluation evalRC = new Evaluation(trainData);
-		evalRC.evaluateModel(wekaRC, testData);
-		System.out.println("RC Accuracy="+ ((evalRC.correct()/(evalRC.correct()+evalRC.incorrect())) * 100)); */
+		for(int m = 0; m < members.length; m++) {
+			Evaluation eval = new Evaluation(trainData);
+			eval.evaluateModel(members[m], testData);
+			System.out.println(trainer.names.get(m)+" Accuracy="+ ((eval.correct()/(eval.correct()+eval.incorrect())) * 100));
+		} */
 		
 		// used for guessing accuracy
 		int unknown = 0;
 		int perfect = 0;
 		
+		// used for the accuracy of the cascade, which does not score every classifier and so cannot tell if they all agree
+		int labeled = 0;
+		int correct = 0;
+		
 		/* Used for collecting statistics
-		int perfectAndCorrect = 0;
-		int correct = 0; */
+		int perfectAndCorrect = 0; */
 		
-		// consider every instance in the prediction file
-		int i = 0;
-		String toWrite = "";
-		Scanner sc2 = new Scanner(new File(predictionFile));
-		while(sc2.hasNextLine()) {
-			String next = sc2.nextLine();
-			if(!next.trim().isEmpty()) {
-				/* Used for collecting statistics
-				String[] splitLine = next.split("\\s+");
-				*/
-				
-				// determine what class this current instance belongs in
-				int wRFInstance = (int)wekaRF.classifyInstance(testData.get(i));
-				int wRSSInstance = (int)wekaRSS.classifyInstance(testData.get(i));
-				int wBInstance = (int)wekaB.classifyInstance(testData.get(i));
-				int wRCInstance = (int)wekaRC.classifyInstance(testData.get(i));
-				int wASCInstance = (int)wekaASC.classifyInstance(testData.get(i));
-				
-				double numClassifiers = 5.0;
-				double sum = wRCInstance + wRFInstance + wRSSInstance + wBInstance + wASCInstance;
-				
-				if(i != 0)
-					toWrite += "\n";
-				
-				// all classifiers guess the same class for the current instance
-				if(sum == 0 || sum == numClassifiers) {
-					toWrite += wRFInstance;
-					perfect++;
-					/* Used for collecting statistics
-					if(Integer.parseInt(splitLine[splitLine.length-1]) == wRFInstance) {
-						perfectAndCorrect++;
+		// score every instance of the prediction set in parallel, either with all five classifiers, counting the classifiers
+		// that guess class 1, or with the cascade
+		int numInstances = testData.numInstances();
+		double numClassifiers = members.length;
+		int[] votes = null;
+		int[] predictions = new int[numInstances];
+		boolean[] unanimous = new boolean[numInstances];
+		if(cascade) {
+			Classifier[] ordered = new Classifier[members.length];
+			for(int m = 0; m < members.length; m++)
+				ordered[m] = members[CASCADE_ORDER[m]];
+			long evaluations = BatchScorer.cascade(ordered, testData, Runtime.getRuntime().availableProcessors(), CASCADE_MARGIN, predictions);
+			long saved = members.length * (long)numInstances - evaluations;
+			System.out.println("\nCascade scored "+evaluations+" times, saving "+saved+" of "+(members.length * (long)numInstances)+" classifier evaluations");
+		}
+		else
+			votes = BatchScorer.vote(members, testData, Runtime.getRuntime().availableProcessors());
+		
+		// consider every instance in the prediction file, writing its prediction as soon as it is made
+		BufferedWriter writer = new BufferedWriter(new FileWriter("prediction.txt"), 1 << 16);
+		for(int i = 0; i < numInstances; i++) {
+			// the majority of the votes, and whether every classifier agreed
+			if(!cascade) {
+				double sum = votes[i];
+				predictions[i] = (int)Math.round(sum / numClassifiers);
+				unanimous[i] = sum == 0 || sum == numClassifiers;
+			}
+			
+			if(i != 0)
+				writer.write("\n");
+			writer.write(Integer.toString(predictions[i]));
+			
+			// the cascade is only measured on the instances whose class is known
+			if(cascade) {
+				if(!testData.get(i).classIsMissing()) {
+					labeled++;
+					if((int)testData.get(i).classValue() == predictions[i])
 						correct++;
-					} */
 				}
-				// all classifiers do not guess the same class for the current instance
-				else {
-					unknown++;
-					toWrite += Math.round(((double)sum) / numClassifiers);
-					/* Used for collecting statistics
-					if(Integer.parseInt(splitLine[splitLine.length-1]) == Math.round(((double)sum) / numClassifiers))
-						correct++; */
-				}
-				i++;
+			}
+			// all classifiers guess the same class for the current instance
+			else if(unanimous[i]) {
+				perfect++;
+				/* Used for collecting statistics
+				if((int)testData.get(i).classValue() == predictions[i]) {
+					perfectAndCorrect++;
+					correct++;
+				} */
+			}
+			// all classifiers do not guess the same class for the current instance
+			else {
+				unknown++;
+				/* Used for collecting statistics
+				if((int)testData.get(i).classValue() == predictions[i])
+					correct++; */
 			}
 		}
-		sc2.close();
+		writer.close();
 		
-		// make an approximation for the accuracy
-		System.out.println("\nApproximate Accuracy="+(((((double)perfect*0.83)+((double)unknown*0.6)) / (double)numInstances) * 100));
+		// report the accuracy of the cascade, or make an approximation for the accuracy from the agreement of the classifiers
+		if(cascade) {
+			if(labeled > 0)
+				System.out.println("\nCascade Accuracy="+(((double)correct / labeled) * 100)+" on "+labeled+" instances with a known class");
+			else
+				System.out.println("\nCascade Accuracy=unknown, no instance of the prediction set has a known class");
+		}
+		else
+			System.out.println("\nApproximate Accuracy="+(((((double)perfect*0.83)+((double)unknown*0.6)) / (double)numInstances) * 100));
 		
 		/* Used for outputting statistics
 		System.out.println("\nUnknown="+unknown+"\nPerfect="+perfect+"\nCorrect="+correct+"\nPerfect and Correct="+perfectAndCorrect);
 		System.out.println("Real Accuracy="+(((double)correct/numInstances)*100)); */
-		
-		// write to the prediction file
-		BufferedWriter writer = new BufferedWriter(new FileWriter("prediction.txt"));
-	    writer.write(toWrite);
-	    writer.close();
 	}
 	
-	// create an attribute-relation file format (arff) file given a text file with data as input
-	static void makeArff(String file, String arff) throws IOException
+	// read the attributes of the 'attr.txt' file
+	static Attribute[] readAttributes() throws IOException
 	{
 		// count number of attributes
 		Scanner sc1 = new Scanner(new File("attr.txt"));
@@ -257,42 +277,93 @@ public class Main {
 				i--;
 		}
 		sc2.close();
+		return attrs;
+	}
+	
+	// create an attribute-relation file format (arff) file given a text file with data as input, writing every line as it is read
+	static void makeArff(String file, String arff) throws IOException
+	{
+		Attribute attrs[] = readAttributes();
+		BufferedWriter w = new BufferedWriter(new FileWriter(arff), 1 << 16);
 		
 		// header section
-		String to = "@RELATION rel\n\n";
+		w.write("@RELATION rel\n\n");
 		for(int i = 0; i < attrs.length; i++) {
-			to += "@ATTRIBUTE "+attrs[i].name;
+			w.write("@ATTRIBUTE "+attrs[i].name);
 			if(attrs[i].cont)
-				to += " NUMERIC\n";
+				w.write(" NUMERIC\n");
 			else
 			{
-				String t = "";
+				w.write(" {");
 				for(int j = 0; j < attrs[i].values.length; j++)
 				{
-					t += (int)attrs[i].values[j];
+					w.write(Integer.toString((int)attrs[i].values[j]));
 					if(j != attrs[i].values.length-1)
-						t += ",";
+						w.write(",");
 				}
-				to += " {"+t+"}\n";
+				w.write("}\n");
 			}
 		}
-		to += "\n@DATA";
+		w.write("\n@DATA");
 		
 		// data section
-		Scanner sc3 = new Scanner(new File(file));
-		while(sc3.hasNextLine()) {
-			String next = sc3.nextLine();
+		BufferedReader r = new BufferedReader(new FileReader(file), 1 << 16);
+		String next;
+		while((next = r.readLine()) != null) {
 			if(!next.trim().isEmpty()) {
-				String line = "\n"+next.replace(' ', ',');
-				to+=line;
+				w.write("\n");
+				w.write(next.replace(' ', ','));
 			}
 		}
-		sc3.close();
+		r.close();
 		
-		// write to arff
-		BufferedWriter w = new BufferedWriter(new FileWriter(arff));
-	    	w.write(to);
-	    	w.close();
+		// finish the arff
+		w.close();
 		System.out.println("Made arff: " + arff);
 	}
+	
+	// create the weka instances of a text file with data directly, with the same attributes as the arff file made by makeArff
+	static Instances readInstances(String file) throws IOException
+	{
+		// weka attributes of the 'attr.txt' file, numeric or with the same nominal values as the arff header
+		Attribute attrs[] = readAttributes();
+		ArrayList<weka.core.Attribute> wekaAttrs = new ArrayList<weka.core.Attribute>();
+		for(int i = 0; i < attrs.length; i++) {
+			if(attrs[i].cont)
+				wekaAttrs.add(new weka.core.Attribute(attrs[i].name));
+			else {
+				ArrayList<String> values = new ArrayList<String>();
+				for(int j = 0; j < attrs[i].values.length; j++)
+					values.add(Integer.toString((int)attrs[i].values[j]));
+				wekaAttrs.add(new weka.core.Attribute(attrs[i].name, values));
+			}
+		}
+		Instances data = new Instances("rel", wekaAttrs, 0);
+		
+		// add every line of the text file as an instance; missing values, and missing trailing values such as an unknown class, are '?'
+		BufferedReader r = new BufferedReader(new FileReader(file), 1 << 16);
+		String next;
+		while((next = r.readLine()) != null) {
+			if(next.trim().isEmpty())
+				continue;
+			String splitLine[] = next.trim().split("\\s+");
+			double values[] = new double[attrs.length];
+			for(int i = 0; i < attrs.length; i++) {
+				if(i >= splitLine.length || Objects.equals(splitLine[i], "?"))
+					values[i] = Utils.missingValue();
+				else if(attrs[i].cont)
+					values[i] = Double.parseDouble(splitLine[i]);
+				else {
+					values[i] = wekaAttrs.get(i).indexOfValue(splitLine[i]);
+					if(values[i] < 0) {
+						r.close();
+						throw new IOException("Unknown value " + splitLine[i] + " of " + attrs[i].name + " in " + file);
+					}
+				}
+			}
+			data.add(new DenseInstance(1.0, values));
+		}
+		r.close();
+		return data;
+	}
 }
@@ -0,0 +1,188 @@
+/*
+ * ModelCache.java
+ * Date: 2018
+ *
+ * Description:
+ * 		This file contains the class definition for ModelCache.
+ *
+ * 		The ModelCache class maintains a directory of serialized built weka classifiers, each named by a
+ * 			SHA-256 hash of the contents of the data files it was trained on and its class and option
+ * 			string, and the number of bytes the directory may hold.
+ *
+ * 		It is also responsible for loading a cached classifier when the data and options have not changed,
+ * 			and for storing newly built classifiers, evicting the least recently used ones once the
+ * 			directory holds more than its number of bytes.
+ *
+ */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import weka.core.SerializationHelper;
+import weka.classifiers.Classifier;
+
+public class ModelCache {
+	// extension of the cached classifiers
+	static final String EXTENSION = ".model";
+
+	File directory;
+	long maxBytes;
+
+	/* Description:	Creates a cache in a directory, creating the directory if needed
+	 *
+	 * Input:		The directory (dir)
+	 *				Number of bytes the directory may hold (bytes)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Assigns the directory and its size (directory, maxBytes)
+	 */
+	public ModelCache(String dir, long bytes) throws IOException
+	{
+		directory = new File(dir);
+		maxBytes = bytes;
+		if(!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Cannot create model cache " + dir);
+	}
+
+	/* Description:	Hashes the contents of the data files; the hash is shared by the keys of every classifier trained on them
+	 *
+	 * Input:		The data files (files)
+	 *
+	 * Output:		The SHA-256 digest of the contents of the files
+	 *
+	 * Effect:		N/A
+	 */
+	public static MessageDigest hashFiles(String... files) throws IOException
+	{
+		MessageDigest digest = sha256();
+		byte[] buffer = new byte[1 << 16];
+		for(String file : files) {
+			DigestInputStream in = new DigestInputStream(new FileInputStream(file), digest);
+			while(in.read(buffer) >= 0);
+			in.close();
+
+			// separate the files, so that moving bytes from one file to the next changes the hash
+			digest.update((byte)0);
+		}
+		return digest;
+	}
+
+	/* Description:	Finds the key of a classifier from the hash of its data files and its class and option string
+	 *
+	 * Input:		The SHA-256 digest of the data files, which is not changed (dataHash)
+	 *				The classifier (classifier)
+	 *				The option string of the classifier (options)
+	 *
+	 * Output:		The key, as a hexadecimal string
+	 *
+	 * Effect:		N/A
+	 */
+	public static String key(MessageDigest dataHash, Classifier classifier, String options)
+	{
+		MessageDigest digest;
+		try {
+			digest = (MessageDigest)dataHash.clone();
+		}
+		catch(CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+		digest.update((classifier.getClass().getName() + " " + options).getBytes(StandardCharsets.UTF_8));
+
+		// write the digest as hexadecimal
+		StringBuilder hex = new StringBuilder();
+		for(byte b : digest.digest())
+			hex.append(String.format("%02x", b));
+		return hex.toString();
+	}
+
+	/* Description:	Creates a SHA-256 message digest
+	 *
+	 * Input:		N/A
+	 *
+	 * Output:		The message digest
+	 *
+	 * Effect:		N/A
+	 */
+	static MessageDigest sha256()
+	{
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch(NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/* Description:	Loads the classifier of a key, marking it as recently used
+	 *
+	 * Input:		The key (key)
+	 *
+	 * Output:		The cached classifier, or null if there is none or it cannot be read
+	 *
+	 * Effect:		Updates the last use of the classifier, or deletes it if it cannot be read
+	 */
+	public synchronized Classifier load(String key)
+	{
+		File file = new File(directory, key + EXTENSION);
+		if(!file.isFile())
+			return null;
+		try {
+			Classifier classifier = (Classifier)SerializationHelper.read(file.getPath());
+			file.setLastModified(System.currentTimeMillis());
+			return classifier;
+		}
+		catch(Exception e) {
+			// a file that cannot be read (written by another version, or cut short) is a miss
+			file.delete();
+			return null;
+		}
+	}
+
+	/* Description:	Stores the classifier of a key, then evicts the least recently used classifiers until the directory
+	 *				holds at most maxBytes, never evicting the one just stored
+	 *
+	 * Input:		The key (key)
+	 *				The built classifier (classifier)
+	 *
+	 * Output:		N/A
+	 *
+	 * Effect:		Writes the classifier to the directory and deletes the evicted ones
+	 */
+	public synchronized void store(String key, Classifier classifier) throws Exception
+	{
+		// write to a temporary file of its own first, so that no other run reads a classifier that is only partly
+		// written and runs storing the same key at once do not write to the same file
+		File file = new File(directory, key + EXTENSION);
+		File temporary = Files.createTempFile(directory.toPath(), key, ".tmp").toFile();
+		try {
+			SerializationHelper.write(temporary.getPath(), classifier);
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			temporary.delete();
+		}
+
+		// evict the least recently used classifiers
+		File[] cached = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+		if(cached == null)
+			return;
+		Arrays.sort(cached, Comparator.comparingLong(File::lastModified));
+		long total = 0;
+		for(File f : cached)
+			total += f.length();
+		for(int c = 0; c < cached.length && total > maxBytes; c++) {
+			if(cached[c].equals(file))
+				continue;
+			total -= cached[c].length();
+			cached[c].delete();
+		}
+	}
+}